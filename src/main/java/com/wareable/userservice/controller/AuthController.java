@@ -1,39 +1,50 @@
 package com.wareable.userservice.controller;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import com.wareable.userservice.logging.LogEvent;
 import com.wareable.userservice.logging.LogUploaderService;
 import com.wareable.userservice.model.AppUser;
-import com.wareable.userservice.model.ERole;
-import com.wareable.userservice.model.Role;
 import com.wareable.userservice.payload.request.LoginRequest;
 import com.wareable.userservice.payload.request.SignupRequest;
 import com.wareable.userservice.payload.response.JwtResponse;
 import com.wareable.userservice.payload.response.MessageResponse;
-import com.wareable.userservice.repository.RoleRepository;
 import com.wareable.userservice.repository.UserRepository;
+import com.wareable.userservice.security.BoundedPasswordEncoder;
+import com.wareable.userservice.security.PasswordHashingStats;
 import com.wareable.userservice.security.jwt.JwtUtils;
+import com.wareable.userservice.security.jwt.JwtValidationResult;
+import com.wareable.userservice.security.jwt.TokenRevocationService;
+import com.wareable.userservice.services.impl.BulkSignupService;
+import com.wareable.userservice.services.impl.RoleRegistry;
 import com.wareable.userservice.services.impl.UserDetailsImpl;
+import com.wareable.userservice.services.impl.UserDetailsServiceImpl;
+import com.wareable.userservice.services.impl.UserIndexInitializer;
+import com.wareable.userservice.services.support.CacheStats;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -52,10 +63,19 @@ public class AuthController {
 	UserRepository userRepository;
 
 	@Autowired
-	RoleRepository roleRepository;
+	RoleRegistry roleRegistry;
 
 	@Autowired
-	PasswordEncoder encoder;
+	BulkSignupService bulkSignupService;
+
+	@Autowired
+	UserIndexInitializer userIndexes;
+
+	@Value("${userservice.app.signupBatchMaxSize:50000}")
+	private int signupBatchMaxSize;
+
+	@Autowired
+	BoundedPasswordEncoder encoder;
 
 	@Autowired
 	LogUploaderService logUploaderService;
@@ -63,11 +83,17 @@ public class AuthController {
 	@Autowired
 	JwtUtils jwtUtils;
 
+	@Autowired
+	UserDetailsServiceImpl userDetailsService;
+
+	@Autowired
+	TokenRevocationService tokenRevocationService;
+
 	@PostMapping("/signin")
     @Operation(summary = "User Sign In", 
 			description = "Authenticates a user with username and password, returns a JWT token on success.", security = @SecurityRequirement(name = ""))
 	public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-		logUploaderService.appendLogToS3("API REQUEST: /signin by " + loginRequest.getUsername());
+		logUploaderService.log(LogEvent.apiRequest("/signin", loginRequest.getUsername()));
 
 		try {
 			Authentication authentication = authenticationManager.authenticate(
@@ -79,77 +105,95 @@ public class AuthController {
 			List<String> roles = userDetails.getAuthorities().stream().map(item -> item.getAuthority())
 					.collect(Collectors.toList());
 
-			logUploaderService.appendLogToS3("DB TRANSACTION: Authenticated user " + loginRequest.getUsername());
+			logUploaderService.log(LogEvent.dbTransaction("Authenticated user", loginRequest.getUsername()));
 
 			return ResponseEntity.ok(new JwtResponse(jwt, userDetails.getId(), userDetails.getUsername(),
 					userDetails.getEmail(), roles));
 		} catch (Exception e) {
-			logUploaderService.appendLogToS3("ERROR during /signin: " + e.getMessage());
+			logUploaderService.log(LogEvent.error("/signin", e.getMessage()));
 			throw e;
 		}
 	}
 
+	@PostMapping("/signout")
+	@Operation(summary = "User Sign Out", description = "Revokes the JWT token sent in the Authorization header.")
+	public ResponseEntity<?> signOutUser(@RequestHeader(name = "Authorization", required = false) String authorization) {
+		String token = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+		JwtValidationResult result = token != null ? jwtUtils.parseAndValidate(token) : null;
+		if (result == null || !result.isValid()) {
+			return ResponseEntity.badRequest().body(new MessageResponse("Error: No valid token to revoke!"));
+		}
+
+		tokenRevocationService.revokeToken(result.getClaims());
+		logUploaderService.log(LogEvent.dbTransaction("Token revoked", result.getClaims().getSubject()));
+		SecurityContextHolder.clearContext();
+		return ResponseEntity.ok(new MessageResponse("Signed out successfully!"));
+	}
+
 	@PostMapping("/signup")
 	@Operation(
 		    summary = "User Sign Up",
 		    description = "Registers a new user by taking username, email, password, and roles.", security = @SecurityRequirement(name = "")
 		)public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
-		logUploaderService.appendLogToS3("API REQUEST: /signup by " + signUpRequest.getUsername());
+		logUploaderService.log(LogEvent.apiRequest("/signup", signUpRequest.getUsername()));
 
 		try {
-			if (userRepository.existsByUsername(signUpRequest.getUsername())) {
-				logUploaderService.appendLogToS3("DB CHECK: Username already exists: " + signUpRequest.getUsername());
-				return ResponseEntity.badRequest().body(new MessageResponse("Error: Username is already taken!"));
+			if (!userIndexes.isEnforced()) {
+				// best effort while the unique indexes are missing; not race-free
+				if (userRepository.existsByUsername(signUpRequest.getUsername())) {
+					logUploaderService.log(LogEvent.dbTransaction("Username already exists", signUpRequest.getUsername()));
+					return ResponseEntity.badRequest().body(new MessageResponse("Error: Username is already taken!"));
+				}
+				if (signUpRequest.getEmail() != null && userRepository.existsByEmail(signUpRequest.getEmail())) {
+					logUploaderService.log(LogEvent.dbTransaction("Email already in use", signUpRequest.getEmail()));
+					return ResponseEntity.badRequest().body(new MessageResponse("Error: Email is already in use!"));
+				}
 			}
-
-			if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-				logUploaderService.appendLogToS3("DB CHECK: Email already in use: " + signUpRequest.getEmail());
-				return ResponseEntity.badRequest().body(new MessageResponse("Error: Email is already in use!"));
-			}
-
 			AppUser user = new AppUser(signUpRequest.getUsername(), signUpRequest.getEmail(),
 					encoder.encode(signUpRequest.getPassword()));
 
-			Set<String> strRoles = signUpRequest.getRole();
-			Set<Role> roles = new HashSet<>();
-
-			if (strRoles == null) {
-				Role userRole = roleRepository.findByName(ERole.ROLE_USER)
-						.orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-				roles.add(userRole);
-			} else {
-				strRoles.forEach(role -> {
-					switch (role) {
-					case "admin":
-						Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN)
-								.orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-						roles.add(adminRole);
-						break;
-					case "mod":
-						Role modRole = roleRepository.findByName(ERole.ROLE_MODERATOR)
-								.orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-						roles.add(modRole);
-						break;
-					default:
-						Role userRole = roleRepository.findByName(ERole.ROLE_USER)
-								.orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-						roles.add(userRole);
-					}
-				});
+			user.setRoles(roleRegistry.resolve(signUpRequest.getRole()));
+			try {
+				// the unique indexes on username and email make this a single, race-free round trip
+				userRepository.insert(user);
+			} catch (DuplicateKeyException e) {
+				return duplicateUserResponse(e, signUpRequest.getUsername(), signUpRequest.getEmail());
 			}
 
-			user.setRoles(roles);
-			userRepository.save(user);
-
-			logUploaderService.appendLogToS3("DB TRANSACTION: New user registered: " + signUpRequest.getUsername());
+			logUploaderService.log(LogEvent.dbTransaction("New user registered", signUpRequest.getUsername()));
 
 			return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
 		} catch (Exception e) {
-			logUploaderService.appendLogToS3("ERROR during /signup: " + e.getMessage());
+			logUploaderService.log(LogEvent.error("/signup", e.getMessage()));
 			throw e;
 		}
 	}
 
+	@PostMapping("/signup/batch")
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(summary = "Batch User Sign Up", description = "Registers a list of users. Streams back a JSON array with one result per request (CREATED, DUPLICATE_USERNAME, DUPLICATE_EMAIL, INVALID or FAILED), in request order.")
+	public ResponseEntity<?> registerUsers(@RequestBody List<SignupRequest> signUpRequests) {
+		if (signUpRequests == null || signUpRequests.isEmpty() || signUpRequests.size() > signupBatchMaxSize) {
+			return ResponseEntity.badRequest()
+					.body(new MessageResponse("Error: A batch must contain 1 to " + signupBatchMaxSize + " users!"));
+		}
+		logUploaderService.log(LogEvent.apiRequest("/signup/batch", Integer.toString(signUpRequests.size())));
+
+		ResponseBodyEmitter body = bulkSignupService.registerStreaming(signUpRequests);
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+
+	private ResponseEntity<MessageResponse> duplicateUserResponse(DuplicateKeyException e, String username,
+			String email) {
+		String message = String.valueOf(e.getMessage());
+		if (message.contains(AppUser.EMAIL_INDEX)) {
+			logUploaderService.log(LogEvent.dbTransaction("Email already in use", email));
+			return ResponseEntity.badRequest().body(new MessageResponse("Error: Email is already in use!"));
+		}
+		logUploaderService.log(LogEvent.dbTransaction("Username already exists", username));
+		return ResponseEntity.badRequest().body(new MessageResponse("Error: Username is already taken!"));
+	}
+
 	// Update user by ID
 	@PutMapping("/{id}")
 	@Operation(summary = "Update User", description = "Update an existing user's information by ID.")
@@ -158,11 +202,17 @@ public class AuthController {
 
 		if (userOptional.isPresent()) {
 			AppUser existingUser = userOptional.get();
+			String previousUsername = existingUser.getUsername();
 			existingUser.setUsername(updatedUser.getUsername());
 			existingUser.setEmail(updatedUser.getEmail());
 			// You can include other fields as needed
 
-			userRepository.save(existingUser);
+			try {
+				userRepository.save(existingUser);
+			} catch (DuplicateKeyException e) {
+				return duplicateUserResponse(e, existingUser.getUsername(), existingUser.getEmail());
+			}
+			userDetailsService.evict(previousUsername);
 			return ResponseEntity.ok(existingUser);
 		} else {
 			return ResponseEntity.notFound().build();
@@ -173,12 +223,37 @@ public class AuthController {
 	@DeleteMapping("/{id}")
 	@Operation(summary = "Delete User", description = "Delete a user by ID.")
 	public ResponseEntity<String> deleteUser(@PathVariable String id) {
-		if (userRepository.existsById(id)) {
+		Optional<AppUser> userOptional = userRepository.findById(id);
+
+		if (userOptional.isPresent()) {
 			userRepository.deleteById(id);
+			userDetailsService.evict(userOptional.get().getUsername());
+			tokenRevocationService.revokeUser(userOptional.get().getUsername());
 			return ResponseEntity.ok("User deleted successfully");
 		} else {
 			return ResponseEntity.notFound().build();
 		}
 	}
 
+	@PostMapping("/roles/refresh")
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(summary = "Refresh Roles", description = "Reloads the role registry from MongoDB, creating missing roles.")
+	public ResponseEntity<?> refreshRoles() {
+		return ResponseEntity.ok(roleRegistry.refresh().keySet());
+	}
+
+	@GetMapping("/hashing/stats")
+	@PreAuthorize("isAuthenticated()")
+	@Operation(summary = "Password Hashing Stats", description = "Queue depth, rejections and latency of the password hashing pool.")
+	public ResponseEntity<PasswordHashingStats> passwordHashingStats() {
+		return ResponseEntity.ok(encoder.getStats());
+	}
+
+	@GetMapping("/cache/stats")
+	@PreAuthorize("isAuthenticated()")
+	@Operation(summary = "User Cache Stats", description = "Hit, miss and eviction counters of the authentication user cache.")
+	public ResponseEntity<CacheStats> userCacheStats() {
+		return ResponseEntity.ok(userDetailsService.getCacheStats());
+	}
+
 }
\ No newline at end of file
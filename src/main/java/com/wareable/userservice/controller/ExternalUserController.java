@@ -1,68 +1,224 @@
 package com.wareable.userservice.controller;
 
-import com.wareable.userservice.model.AppUser;
+import com.wareable.userservice.importer.DeltaOptions;
+import com.wareable.userservice.importer.ImportJob;
+import com.wareable.userservice.importer.ImportJobService;
+import com.wareable.userservice.importer.MappedFileImporter;
+import com.wareable.userservice.payload.request.FileImportRequest;
+import com.wareable.userservice.payload.request.JsonImportRequest;
 import com.wareable.userservice.service.ExternalUserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/external")
 @Tag(name = "External User Controller", description = "APIs to fetch and manage external users and unstructured JSON data.")
 public class ExternalUserController {
 
+	private static final Set<String> USER_FIELDS = new LinkedHashSet<>(List.of("id", "username", "email", "roles"));
+
 	@Autowired
 	private ExternalUserService externalUserService;
 
+	@Autowired
+	private ImportJobService importJobService;
+
+	@Value("${userservice.import.multi.max-sources:100}")
+	private int maxSourcesPerJob;
+
+	@Value("${userservice.import.delta.enabled:false}")
+	private boolean deltaByDefault;
+
+	@Value("${userservice.users.list.default-page-size:100}")
+	private int defaultPageSize;
+
+	@Value("${userservice.users.list.max-page-size:1000}")
+	private int maxPageSize;
+
 	@PreAuthorize("isAuthenticated()")
 	@GetMapping("/fetch-user-data")
-	@Operation(summary = "Fetch & Save Users from External API", description = "Fetches user data from a predefined external API (https://jsonplaceholder.typicode.com/users) and saves it into the database.")
-	public ResponseEntity<String> fetchAndSaveUser() {
-		try {
-			String apiUrl = "https://jsonplaceholder.typicode.com/users";
-			externalUserService.importUsersFromCustomUrl(apiUrl);
-			return ResponseEntity.ok("Users imported successfully from: " + apiUrl);
-		} catch (Exception e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
-		}
+	@Operation(summary = "Fetch & Save Users from External API", description = "Starts an import job that fetches user data from a predefined external API (https://jsonplaceholder.typicode.com/users) and saves it into the database. Returns the job; poll /api/external/jobs/{id} for progress. 'force' re-imports even if the source reports no change.")
+	public ResponseEntity<?> fetchAndSaveUser(@RequestParam(defaultValue = "false") boolean force) {
+		String apiUrl = "https://jsonplaceholder.typicode.com/users";
+		return accepted(importJobService.submit(ImportJob.Type.USERS, apiUrl,
+				progress -> externalUserService.importUsersFromCustomUrl(apiUrl, force, progress)));
 	}
 
 	@PreAuthorize("isAuthenticated()")
 	@GetMapping("/list-user-data")
-	@Operation(summary = "List Saved Users", description = "Retrieves a list of all users previously fetched from the external API and stored in the database.")
-	public List<AppUser> getUsers() {
-		return externalUserService.getUsers();
+	@Operation(summary = "List Saved Users", description = "Retrieves one page of stored users, ordered by id. Pass the returned nextCursor as 'after' for the next page. 'fields' selects among id, username, email and roles; the password is never returned.")
+	public ResponseEntity<?> getUsers(@RequestParam(required = false) String after,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) Set<String> fields) {
+		if (after != null && !ObjectId.isValid(after)) {
+			return ResponseEntity.badRequest().body("'after' must be a cursor returned by a previous page");
+		}
+		int pageSize = limit != null ? limit : defaultPageSize;
+		if (pageSize < 1 || pageSize > maxPageSize) {
+			return ResponseEntity.badRequest().body("'limit' must be between 1 and " + maxPageSize);
+		}
+		Set<String> selected = fields == null || fields.isEmpty() ? USER_FIELDS : fields;
+		if (!USER_FIELDS.containsAll(selected)) {
+			return ResponseEntity.badRequest().body("'fields' may only contain " + String.join(", ", USER_FIELDS));
+		}
+		return ResponseEntity.ok(externalUserService.getUsers(after, pageSize, selected));
 	}
 
 	@PreAuthorize("isAuthenticated()")
 	@PostMapping("/save-json-data")
-	@Operation(summary = "Import JSON Data from Custom URL", description = "Accepts a custom JSON URL in the request body and imports unstructured data into the system.")
-	public ResponseEntity<String> importDataFromUrl(@RequestBody Map<String, String> requestBody) {
-		String url = requestBody.get("url");
+	@Operation(summary = "Import JSON Data from Custom URL", description = "Accepts a custom JSON URL in the request body and starts an import job for its unstructured data. Returns the job; poll /api/external/jobs/{id} for progress.")
+	public ResponseEntity<?> importDataFromUrl(@RequestBody JsonImportRequest request) {
+		String url = request.getUrl();
 		if (url == null || url.isBlank()) {
 			return ResponseEntity.badRequest().body("Missing 'url' in request body");
 		}
+		if (!isValidMode(request.getMode())) {
+			return ResponseEntity.badRequest().body("'mode' must be 'append' or 'delta'");
+		}
+		DeltaOptions delta = deltaOptions(request.getMode(), request.getKey(), request.isTombstone());
 
+		return accepted(importJobService.submit(ImportJob.Type.RAW_JSON, url,
+				progress -> externalUserService.importRawJsonFromUrl(url, delta, request.isForce(), progress)));
+	}
+
+	@PreAuthorize("isAuthenticated()")
+	@GetMapping("/list-json-data")
+	@Operation(summary = "List Unstructured JSON Data", description = "Streams the imported raw/unstructured JSON data from the database as a JSON array, or as newline-delimited JSON with format=ndjson or Accept: application/x-ndjson.")
+	public ResponseEntity<StreamingResponseBody> getUnstructuredData(@RequestParam(required = false) String format,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		boolean ndjson = "ndjson".equalsIgnoreCase(format)
+				|| (format == null && accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE));
+		StreamingResponseBody body = outputStream -> externalUserService.writeJsonData(outputStream, ndjson);
+		return ResponseEntity.ok().contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+				.body(body);
+	}
+
+	@PreAuthorize("isAuthenticated()")
+	@PostMapping("/save-json-data/batch")
+	@Operation(summary = "Import JSON Data from Several URLs", description = "Accepts a list of JSON URLs and starts one import job that fetches them concurrently, within per-host and global limits. Documents are tagged with their source URL; the job reports timing and outcome per source.")
+	public ResponseEntity<?> importDataFromUrls(@RequestBody JsonImportRequest request) {
+		List<String> urls = request.getUrls();
+		if (urls == null || urls.isEmpty() || urls.size() > maxSourcesPerJob) {
+			return ResponseEntity.badRequest().body("'urls' must contain 1 to " + maxSourcesPerJob + " URLs");
+		}
+		if (urls.stream().anyMatch(url -> url == null || url.isBlank())) {
+			return ResponseEntity.badRequest().body("'urls' must not contain blank entries");
+		}
+		if (!isValidMode(request.getMode())) {
+			return ResponseEntity.badRequest().body("'mode' must be 'append' or 'delta'");
+		}
+		DeltaOptions delta = deltaOptions(request.getMode(), request.getKey(), request.isTombstone());
+
+		return accepted(importJobService.submit(ImportJob.Type.RAW_JSON_MULTI, urls.size() + " sources",
+				progress -> externalUserService.importRawJsonFromUrls(urls, delta, request.isForce(), progress)));
+	}
+
+	@PreAuthorize("hasRole('ADMIN')")
+	@PostMapping("/import-file")
+	@Operation(summary = "Import a Local JSON or NDJSON File", description = "Starts an import job for a file under the configured import directory. The file is memory-mapped, split at record boundaries and parsed in parallel into external_raw_data or, with target 'users', upserted as users. The job result reports MB/s and docs/s.")
+	public ResponseEntity<?> importFile(@RequestBody FileImportRequest request) {
+		if (request.getPath() == null || request.getPath().isBlank()) {
+			return ResponseEntity.badRequest().body("Missing 'path' in request body");
+		}
+		MappedFileImporter.Format format;
+		if (request.getFormat() == null) {
+			format = null;
+		} else if (request.getFormat().equalsIgnoreCase("json")) {
+			format = MappedFileImporter.Format.JSON_ARRAY;
+		} else if (request.getFormat().equalsIgnoreCase("ndjson")) {
+			format = MappedFileImporter.Format.NDJSON;
+		} else {
+			return ResponseEntity.badRequest().body("'format' must be 'json' or 'ndjson'");
+		}
+		MappedFileImporter.Target target;
+		if (request.getTarget() == null || request.getTarget().equalsIgnoreCase("raw")) {
+			target = MappedFileImporter.Target.RAW;
+		} else if (request.getTarget().equalsIgnoreCase("users")) {
+			target = MappedFileImporter.Target.USERS;
+		} else {
+			return ResponseEntity.badRequest().body("'target' must be 'raw' or 'users'");
+		}
+		if (!isValidMode(request.getMode())) {
+			return ResponseEntity.badRequest().body("'mode' must be 'append' or 'delta'");
+		}
+
+		Path file;
 		try {
-			externalUserService.importRawJsonFromUrl(url);
-			return ResponseEntity.ok("Users imported successfully from: " + url);
-		} catch (Exception e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
+			file = externalUserService.resolveImportFile(request.getPath());
+		} catch (IllegalArgumentException | IOException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
 		}
+		DeltaOptions delta = target == MappedFileImporter.Target.RAW
+				? deltaOptions(request.getMode(), request.getKey(), false)
+				: null;
+
+		return accepted(importJobService.submit(ImportJob.Type.FILE, request.getPath(),
+				progress -> externalUserService.importFromFile(file, format, target, delta, progress)));
 	}
 
 	@PreAuthorize("isAuthenticated()")
-	@GetMapping("/list-json-data")
-	@Operation(summary = "List Unstructured JSON Data", description = "Retrieves the list of imported raw/unstructured JSON data from the database.")
-	public ResponseEntity<List<Map<String, Object>>> getUnstructuredData() {
-		List<Map<String, Object>> data = externalUserService.getJsonData();
-		return ResponseEntity.ok(data);
+	@GetMapping("/jobs")
+	@Operation(summary = "List Import Jobs", description = "Lists running and recently finished import jobs, newest first.")
+	public List<ImportJob> getImportJobs() {
+		return importJobService.list();
+	}
+
+	@PreAuthorize("isAuthenticated()")
+	@GetMapping("/jobs/{id}")
+	@Operation(summary = "Get Import Job", description = "Reports the status of an import job: bytes read, documents written, throughput and error.")
+	public ResponseEntity<ImportJob> getImportJob(@PathVariable String id) {
+		return ResponseEntity.of(importJobService.get(id));
+	}
+
+	@PreAuthorize("isAuthenticated()")
+	@DeleteMapping("/jobs/{id}")
+	@Operation(summary = "Cancel Import Job", description = "Cancels a queued or running import job. Documents already written are kept.")
+	public ResponseEntity<?> cancelImportJob(@PathVariable String id) {
+		if (importJobService.get(id).isEmpty()) {
+			return ResponseEntity.notFound().build();
+		}
+		if (!importJobService.cancel(id)) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body("Job already finished");
+		}
+		return ResponseEntity.accepted().body(importJobService.get(id).orElse(null));
+	}
+
+	private static boolean isValidMode(String mode) {
+		return mode == null || mode.equalsIgnoreCase("append") || mode.equalsIgnoreCase("delta");
+	}
+
+	/** Null for a plain append import. */
+	private DeltaOptions deltaOptions(String mode, String key, boolean tombstone) {
+		boolean delta = mode != null ? mode.equalsIgnoreCase("delta") : deltaByDefault;
+		if (!delta) {
+			return null;
+		}
+		return key == null || key.isBlank() ? DeltaOptions.byHash(tombstone) : DeltaOptions.byKey(key, tombstone);
+	}
+
+	private ResponseEntity<?> accepted(Optional<ImportJob> job) {
+		if (job.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "30")
+					.body("Too many import jobs running, try again later");
+		}
+		return ResponseEntity.accepted().location(URI.create("/api/external/jobs/" + job.get().getId()))
+				.body(job.get());
 	}
 }
@@ -0,0 +1,78 @@
+package com.wareable.userservice.controller;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.wareable.userservice.logging.LogSearchCriteria;
+import com.wareable.userservice.logging.LogSearchService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/log")
+@Tag(name = "Log Search Controller", description = "Search the application logs stored in S3.")
+public class LogSearchController {
+
+	private static final int MAX_LIMIT = 100_000;
+
+	private static final Duration MAX_RANGE = Duration.ofDays(31);
+
+	private static final int MAX_REGEX_LENGTH = 200;
+
+	private final LogSearchService logSearchService;
+
+	public LogSearchController(LogSearchService logSearchService) {
+		this.logSearchService = logSearchService;
+	}
+
+	@GetMapping("/search")
+	@PreAuthorize("isAuthenticated()")
+	@Operation(summary = "Search Logs", description = "Streams log lines between 'from' and 'to' (ISO-8601 instants, default: the last hour), optionally filtered by event type (API REQUEST, DB TRANSACTION, ERROR), a substring 'q' or a regular expression 'regex' (at most 200 characters, matched against the first 4096 characters of each line). Days logged before per-node segments are read from the legacy app-log-<date>.log object; its lines have no timestamp, so the whole day matches the range.")
+	public ResponseEntity<?> search(
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+			@RequestParam(required = false) String type, @RequestParam(required = false) String q,
+			@RequestParam(required = false) String regex, @RequestParam(defaultValue = "1000") int limit) {
+		Instant end = to != null ? to : Instant.now();
+		Instant start = from != null ? from : end.minus(Duration.ofHours(1));
+		if (start.isAfter(end) || Duration.between(start, end).compareTo(MAX_RANGE) > 0) {
+			return ResponseEntity.badRequest().body("'from' must be before 'to' and the range at most " + MAX_RANGE.toDays() + " days");
+		}
+
+		Pattern pattern = null;
+		if (regex != null && !regex.isEmpty()) {
+			if (regex.length() > MAX_REGEX_LENGTH) {
+				return ResponseEntity.badRequest().body("'regex' must be at most " + MAX_REGEX_LENGTH + " characters");
+			}
+			try {
+				pattern = Pattern.compile(regex);
+			} catch (PatternSyntaxException e) {
+				return ResponseEntity.badRequest().body("Invalid regex: " + e.getDescription());
+			}
+		}
+
+		LogSearchCriteria criteria = new LogSearchCriteria(start, end, type, q, pattern,
+				Math.max(1, Math.min(limit, MAX_LIMIT)));
+		StreamingResponseBody body = outputStream -> {
+			Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+			logSearchService.search(criteria, writer);
+		};
+		return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(body);
+	}
+}
@@ -6,8 +6,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.wareable.userservice.logging.LogEvent;
+import com.wareable.userservice.logging.LogPipelineStats;
 import com.wareable.userservice.logging.LogUploaderService;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @RestController
 @RequestMapping("/api/log")
 public class TestController {
@@ -20,25 +24,26 @@ public class TestController {
 
 	@GetMapping("/simulate")
     @PreAuthorize("isAuthenticated()")
-	public ResponseEntity<String> simulateLogs() {
-		StringBuilder logBuilder = new StringBuilder();
-
-		// Mock API Request
-		logBuilder.append("INFO: API Request received at /api/test/simulate\n");
+	public ResponseEntity<String> simulateLogs(HttpServletRequest request) {
+		// Mock API Request, logged under the route that was actually called
+		logUploaderService.log(LogEvent.apiRequest(request.getRequestURI(), null));
 
 		// Mock DB Transaction
-		logBuilder.append("INFO: DB Transaction - User fetched from DB\n");
+		logUploaderService.log(LogEvent.dbTransaction("User fetched from DB", null));
 
 		// Mock Error
 		try {
 			int result = 10 / 0;
 		} catch (Exception e) {
-			logBuilder.append("ERROR: Division by zero - ").append(e.getMessage()).append("\n");
+			logUploaderService.log(LogEvent.error("Division by zero", e.getMessage()));
 		}
 
-		// Upload to S3
-		logUploaderService.appendLogToS3(logBuilder.toString());
-
 		return ResponseEntity.ok("Log simulated and uploaded to S3.");
 	}
+
+	@GetMapping("/stats")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<LogPipelineStats> logStats() {
+		return ResponseEntity.ok(logUploaderService.getStats());
+	}
 }
\ No newline at end of file
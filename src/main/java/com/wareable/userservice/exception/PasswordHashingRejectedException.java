@@ -0,0 +1,21 @@
+package com.wareable.userservice.exception;
+
+/**
+ * Thrown when the password hashing pool is saturated and a signin or signup
+ * cannot be queued. Mapped to 503 with a {@code Retry-After} header.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterSeconds;
+
+	public PasswordHashingRejectedException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
@@ -0,0 +1,20 @@
+package com.wareable.userservice.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.wareable.userservice.payload.response.MessageResponse;
+
+@RestControllerAdvice
+public class ServiceOverloadExceptionHandler {
+
+	@ExceptionHandler(PasswordHashingRejectedException.class)
+	public ResponseEntity<MessageResponse> handlePasswordHashingRejected(PasswordHashingRejectedException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.body(new MessageResponse("Error: " + ex.getMessage()));
+	}
+}
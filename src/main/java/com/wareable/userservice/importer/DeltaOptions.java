@@ -0,0 +1,39 @@
+package com.wareable.userservice.importer;
+
+/**
+ * How a delta import matches incoming documents to stored ones: by the value
+ * of {@code keyField} (a dotted path), or by content hash when it is null.
+ * With {@code tombstone}, stored documents of the source that the import did
+ * not see are marked deleted.
+ */
+public final class DeltaOptions {
+
+	private final String keyField;
+	private final boolean tombstone;
+
+	private DeltaOptions(String keyField, boolean tombstone) {
+		this.keyField = keyField;
+		this.tombstone = tombstone;
+	}
+
+	public static DeltaOptions byHash(boolean tombstone) {
+		return new DeltaOptions(null, tombstone);
+	}
+
+	public static DeltaOptions byKey(String keyField, boolean tombstone) {
+		return new DeltaOptions(keyField, tombstone);
+	}
+
+	public String getKeyField() {
+		return keyField;
+	}
+
+	public boolean isTombstone() {
+		return tombstone;
+	}
+
+	/** "key:&lt;field&gt;" or "hash"; imports with different matching must not share HTTP validators. */
+	public String describe() {
+		return keyField != null ? "key:" + keyField : "hash";
+	}
+}
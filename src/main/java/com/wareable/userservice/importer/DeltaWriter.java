@@ -0,0 +1,224 @@
+package com.wareable.userservice.importer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+
+/**
+ * Writes one delta import run. Each batch costs one indexed lookup of the
+ * stored hashes for its keys, then a bulk upsert of only the new and changed
+ * documents. Not thread-safe; one instance per run.
+ * <p>
+ * Documents matched by content hash are keyed by the hash plus its
+ * occurrence within the run ({@code <hash>}, {@code <hash>#2}, ...), so a
+ * feed that repeats a record keeps every copy, as an append import would.
+ * A source {@code _id} is kept as {@code _sourceId}: the stored document
+ * keeps its own {@code _id}, which a replacement must not change.
+ * <p>
+ * Writers of the chunks of one file share their occurrence counts and may
+ * race to insert the same key; the upsert that loses on the unique index is
+ * retried as a plain replacement of the winner's document.
+ */
+final class DeltaWriter {
+
+	static final String KEY_FIELD = "_key";
+	static final String HASH_FIELD = "_hash";
+	static final String LAST_SEEN_FIELD = "_lastSeen";
+	static final String SOURCE_ID_FIELD = "_sourceId";
+
+	private static final int DUPLICATE_KEY = 11000;
+	static final String DELETED_FIELD = StreamingJsonImporter.DELETED_FIELD;
+
+	private final MongoTemplate mongoTemplate;
+	private final String collection;
+	private final String source;
+	private final DeltaOptions options;
+	private final MessageDigest digest;
+	// marks every document this run saw, so the ones it did not see can be tombstoned
+	private final ObjectId runId = new ObjectId();
+	// times each content hash was seen this run, possibly shared with the other chunks of a file
+	private final ConcurrentMap<String, Integer> occurrences;
+
+	private long inserted;
+	private long replaced;
+	private long unchanged;
+	private long duplicates;
+	private long failed;
+
+	DeltaWriter(MongoTemplate mongoTemplate, String collection, String source, DeltaOptions options) {
+		this(mongoTemplate, collection, source, options, new ConcurrentHashMap<>());
+	}
+
+	DeltaWriter(MongoTemplate mongoTemplate, String collection, String source, DeltaOptions options,
+			ConcurrentMap<String, Integer> occurrences) {
+		this.mongoTemplate = mongoTemplate;
+		this.occurrences = occurrences;
+		this.collection = collection;
+		this.source = source;
+		this.options = options;
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	void write(List<Document> batch) {
+		// the last occurrence of a key within a batch wins
+		Map<String, Document> byKey = new LinkedHashMap<>();
+		for (Document document : batch) {
+			String hash = hash(document);
+			String key = keyOf(document, hash);
+			Object sourceId = document.remove("_id");
+			if (sourceId != null) {
+				document.put(SOURCE_ID_FIELD, sourceId);
+			}
+			document.put(StreamingJsonImporter.SOURCE_FIELD, source);
+			document.put(KEY_FIELD, key);
+			document.put(HASH_FIELD, hash);
+			document.put(LAST_SEEN_FIELD, runId);
+			if (byKey.put(key, document) != null) {
+				duplicates++;
+			}
+		}
+
+		Map<String, Document> stored = new HashMap<>();
+		Query lookup = bySource().addCriteria(Criteria.where(KEY_FIELD).in(byKey.keySet()));
+		lookup.fields().include(KEY_FIELD, HASH_FIELD, DELETED_FIELD);
+		for (Document existing : mongoTemplate.find(lookup, Document.class, collection)) {
+			stored.put(existing.getString(KEY_FIELD), existing);
+		}
+
+		List<String> seen = new ArrayList<>();
+		BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+		List<Document> writes = new ArrayList<>();
+		for (Map.Entry<String, Document> entry : byKey.entrySet()) {
+			Document existing = stored.get(entry.getKey());
+			if (existing != null && !existing.containsKey(DELETED_FIELD)
+					&& entry.getValue().get(HASH_FIELD).equals(existing.get(HASH_FIELD))) {
+				unchanged++;
+				seen.add(entry.getKey());
+			} else {
+				bulk.replaceOne(bySource().addCriteria(Criteria.where(KEY_FIELD).is(entry.getKey())), entry.getValue(),
+						FindAndReplaceOptions.options().upsert());
+				writes.add(entry.getValue());
+			}
+		}
+
+		if (!writes.isEmpty()) {
+			List<Document> lost = new ArrayList<>();
+			BulkWriteResult result;
+			try {
+				result = bulk.execute();
+			} catch (BulkOperationException e) {
+				result = e.getResult();
+				for (BulkWriteError error : e.getErrors()) {
+					if (error.getCode() == DUPLICATE_KEY) {
+						lost.add(writes.get(error.getIndex()));
+					} else {
+						failed++;
+					}
+				}
+			}
+			count(result);
+			if (!lost.isEmpty()) {
+				replaceLost(lost);
+			}
+		}
+		if (options.isTombstone() && !seen.isEmpty()) {
+			mongoTemplate.updateMulti(bySource().addCriteria(Criteria.where(KEY_FIELD).in(seen)),
+					Update.update(LAST_SEEN_FIELD, runId), collection);
+		}
+	}
+
+	/** Replaces the documents a concurrent upsert of the same key inserted first. */
+	private void replaceLost(List<Document> lost) {
+		BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+		for (Document document : lost) {
+			bulk.replaceOne(bySource().addCriteria(Criteria.where(KEY_FIELD).is(document.get(KEY_FIELD))), document);
+		}
+		BulkWriteResult result;
+		try {
+			result = bulk.execute();
+		} catch (BulkOperationException e) {
+			result = e.getResult();
+		}
+		count(result);
+		failed += lost.size() - result.getMatchedCount();
+	}
+
+	private void count(BulkWriteResult result) {
+		inserted += result.getUpserts().size();
+		replaced += result.getModifiedCount();
+		unchanged += result.getMatchedCount() - result.getModifiedCount();
+	}
+
+	/** Marks the source's live documents this run did not see as deleted; returns how many. */
+	private long tombstoneUnseen() {
+		if (!options.isTombstone()) {
+			return 0;
+		}
+		Query unseen = bySource().addCriteria(Criteria.where(KEY_FIELD).exists(true))
+				.addCriteria(Criteria.where(LAST_SEEN_FIELD).ne(runId))
+				.addCriteria(Criteria.where(DELETED_FIELD).exists(false));
+		return mongoTemplate.updateMulti(unseen, Update.update(DELETED_FIELD, new Date()), collection)
+				.getModifiedCount();
+	}
+
+	/** Ends the run, tombstoning if asked to, and sums it up. */
+	ImportResult finish(long documents, long batches, long skipped) {
+		// an empty or unreadable feed is more likely broken than emptied; it tombstones nothing
+		long tombstoned = documents > 0 ? tombstoneUnseen() : 0;
+		return ImportResult.delta(documents, batches, skipped + duplicates, inserted, replaced, unchanged, tombstoned,
+				failed);
+	}
+
+	private Query bySource() {
+		return Query.query(Criteria.where(StreamingJsonImporter.SOURCE_FIELD).is(source));
+	}
+
+	private String keyOf(Document document, String hash) {
+		if (options.getKeyField() == null) {
+			return occurrenceKey(hash);
+		}
+		Object value = document;
+		for (String part : options.getKeyField().split("\\.")) {
+			value = value instanceof Document nested ? nested.get(part) : null;
+		}
+		// documents without the key fall back to their content hash
+		return value != null ? value.toString() : occurrenceKey(hash);
+	}
+
+	private String occurrenceKey(String hash) {
+		int occurrence = occurrences.merge(hash, 1, Integer::sum);
+		return occurrence == 1 ? hash : hash + "#" + occurrence;
+	}
+
+	private String hash(Document document) {
+		// computed before the source and bookkeeping fields are added
+		byte[] bytes = digest.digest(document.toJson().getBytes(StandardCharsets.UTF_8));
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+}
@@ -0,0 +1,74 @@
+package com.wareable.userservice.importer;
+
+import java.util.Locale;
+
+public class FileImportResult {
+	private final String file;
+	private final MappedFileImporter.Format format;
+	private final MappedFileImporter.Target target;
+	private final int chunks;
+	private final long bytes;
+	private final long documents;
+	private final long durationMs;
+	private final String details;
+
+	FileImportResult(String file, MappedFileImporter.Format format, MappedFileImporter.Target target, int chunks,
+			long bytes, long documents, long durationMs, String details) {
+		this.file = file;
+		this.format = format;
+		this.target = target;
+		this.chunks = chunks;
+		this.bytes = bytes;
+		this.documents = documents;
+		this.durationMs = durationMs;
+		this.details = details;
+	}
+
+	public String getFile() {
+		return file;
+	}
+
+	public MappedFileImporter.Format getFormat() {
+		return format;
+	}
+
+	public MappedFileImporter.Target getTarget() {
+		return target;
+	}
+
+	public int getChunks() {
+		return chunks;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public long getDocuments() {
+		return documents;
+	}
+
+	public long getDurationMs() {
+		return durationMs;
+	}
+
+	public double getMegabytesPerSecond() {
+		return bytes / (1024.0 * 1024.0) * 1000.0 / Math.max(1, durationMs);
+	}
+
+	public double getDocumentsPerSecond() {
+		return documents * 1000.0 / Math.max(1, durationMs);
+	}
+
+	/** The summary of the underlying raw or user import. */
+	public String getDetails() {
+		return details;
+	}
+
+	@Override
+	public String toString() {
+		return details + ", chunks: " + chunks + ", bytes: " + bytes + ", ms: " + durationMs
+				+ String.format(Locale.ROOT, ", MB/s: %.1f, docs/s: %.0f", getMegabytesPerSecond(),
+						getDocumentsPerSecond());
+	}
+}
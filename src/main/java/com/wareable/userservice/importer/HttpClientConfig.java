@@ -0,0 +1,19 @@
+package com.wareable.userservice.importer;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HttpClientConfig {
+
+	/** Shared by all imports; the JDK client keeps and reuses connections per host. */
+	@Bean
+	HttpClient importHttpClient(@Value("${userservice.import.http.connect-timeout-ms:5000}") long connectTimeoutMs) {
+		return HttpClient.newBuilder().connectTimeout(Duration.ofMillis(connectTimeoutMs))
+				.followRedirects(HttpClient.Redirect.NORMAL).build();
+	}
+}
@@ -0,0 +1,106 @@
+package com.wareable.userservice.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Downloads import sources over the shared {@link HttpClient}, gzip-encoded
+ * where the server supports it, with conditional GETs. A source whose ETag or
+ * Last-Modified has not changed since the last successful import comes back
+ * as 304 and is not read at all.
+ */
+@Component
+public class HttpSourceFetcher {
+
+	/** Consumes a response body; it is closed by the fetcher. */
+	@FunctionalInterface
+	public interface BodyReader<T> {
+		T read(InputStream body) throws IOException;
+	}
+
+	private final HttpClient httpClient;
+
+	private final ValidatorCache validators;
+
+	private final Duration responseTimeout;
+
+	private final boolean conditional;
+
+	public HttpSourceFetcher(HttpClient importHttpClient,
+			@Value("${userservice.import.http.response-timeout-ms:30000}") long responseTimeoutMs,
+			@Value("${userservice.import.http.conditional:true}") boolean conditional,
+			@Value("${userservice.import.http.cache-directory:${java.io.tmpdir}/user-service/http-cache}") String cacheDirectory) {
+		this.httpClient = importHttpClient;
+		this.responseTimeout = Duration.ofMillis(responseTimeoutMs);
+		this.conditional = conditional;
+		this.validators = new ValidatorCache(Path.of(cacheDirectory));
+	}
+
+	/**
+	 * GETs {@code url} and hands the decoded body to {@code reader}, or returns
+	 * empty if the source is unchanged. {@code scope} separates imports of the
+	 * same URL into different targets or modes. With {@code force} no
+	 * validators are sent, so the source is read even if it did not change,
+	 * e.g. after the target collection was dropped. Validators are only
+	 * remembered once {@code reader} has returned, so a failed import is
+	 * retried in full.
+	 */
+	public <T> Optional<T> fetch(String scope, String url, boolean force, BodyReader<T> reader) throws IOException {
+		String key = scope + " " + url;
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).timeout(responseTimeout)
+				.header("Accept", "application/json").header("Accept-Encoding", "gzip").GET();
+		if (conditional && !force) {
+			validators.get(key).ifPresent(cached -> {
+				if (cached.etag() != null) {
+					request.header("If-None-Match", cached.etag());
+				}
+				if (cached.lastModified() != null) {
+					request.header("If-Modified-Since", cached.lastModified());
+				}
+			});
+		}
+
+		HttpResponse<InputStream> response;
+		try {
+			response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while fetching " + url);
+		}
+
+		try (InputStream body = decode(response)) {
+			if (response.statusCode() == 304) {
+				return Optional.empty();
+			}
+			if (response.statusCode() / 100 != 2) {
+				throw new IOException("GET " + url + " returned HTTP " + response.statusCode());
+			}
+			T result = reader.read(body);
+			if (conditional) {
+				validators.put(key, new ValidatorCache.Validators(response.headers().firstValue("ETag").orElse(null),
+						response.headers().firstValue("Last-Modified").orElse(null)));
+			}
+			return Optional.of(result);
+		}
+	}
+
+	private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+		String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+		if (encoding.equalsIgnoreCase("gzip") && response.statusCode() / 100 == 2) {
+			return new GZIPInputStream(response.body(), 64 * 1024);
+		}
+		return response.body();
+	}
+}
@@ -0,0 +1,226 @@
+package com.wareable.userservice.importer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A running or finished import. Progress counters are updated by the worker
+ * thread and read by status requests; cancellation is cooperative, checked
+ * on every read from the source stream.
+ */
+public class ImportJob implements ImportProgress {
+
+	public enum Type {
+		USERS, RAW_JSON, RAW_JSON_MULTI, FILE
+	}
+
+	public enum Status {
+		QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+	}
+
+	private final String id;
+	private final Type type;
+	private final String source;
+	private final Instant createdAt = Instant.now();
+	private final AtomicLong bytesRead = new AtomicLong();
+	private final AtomicLong documentsWritten = new AtomicLong();
+	private final List<SourceImportResult> sources = new CopyOnWriteArrayList<>();
+
+	private volatile Status status = Status.QUEUED;
+	private volatile Instant startedAt;
+	private volatile Instant finishedAt;
+	private volatile String result;
+	private volatile String error;
+	private volatile boolean cancelRequested;
+	private volatile Future<?> future;
+
+	ImportJob(String id, Type type, String source) {
+		this.id = id;
+		this.type = type;
+		this.source = source;
+	}
+
+	@Override
+	public InputStream track(InputStream in) {
+		return new FilterInputStream(in) {
+			@Override
+			public int read() throws IOException {
+				checkCancelled();
+				int b = super.read();
+				if (b >= 0) {
+					bytesRead.incrementAndGet();
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				checkCancelled();
+				int n = super.read(buffer, offset, length);
+				if (n > 0) {
+					bytesRead.addAndGet(n);
+				}
+				return n;
+			}
+		};
+	}
+
+	@Override
+	public void documentsWritten(long count) {
+		documentsWritten.addAndGet(count);
+	}
+
+	@Override
+	public void sourceFinished(SourceImportResult source) {
+		sources.add(source);
+	}
+
+	void started() {
+		startedAt = Instant.now();
+		status = Status.RUNNING;
+	}
+
+	void succeeded(String result) {
+		this.result = result;
+		finish(Status.SUCCEEDED);
+	}
+
+	void failed(Throwable e) {
+		Throwable root = e;
+		while (root.getCause() != null && root.getCause() != root) {
+			root = root.getCause();
+		}
+		error = root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+		finish(cancelRequested ? Status.CANCELLED : Status.FAILED);
+	}
+
+	void cancelled() {
+		finish(Status.CANCELLED);
+	}
+
+	boolean cancel() {
+		if (isFinished()) {
+			return false;
+		}
+		cancelRequested = true;
+		// a queued job sees the flag when it starts; cancelling its future would skip that
+		Future<?> running = future;
+		if (running != null && status == Status.RUNNING) {
+			running.cancel(true);
+		}
+		return true;
+	}
+
+	Instant created() {
+		return createdAt;
+	}
+
+	boolean finishedBefore(Instant cutoff) {
+		Instant finished = finishedAt;
+		return finished != null && finished.isBefore(cutoff);
+	}
+
+	boolean isCancelRequested() {
+		return cancelRequested;
+	}
+
+	void setFuture(Future<?> future) {
+		this.future = future;
+	}
+
+	private void finish(Status finalStatus) {
+		finishedAt = Instant.now();
+		status = finalStatus;
+	}
+
+	private void checkCancelled() throws InterruptedIOException {
+		if (cancelRequested) {
+			throw new InterruptedIOException("Import job " + id + " was cancelled");
+		}
+	}
+
+	public boolean isFinished() {
+		Status current = status;
+		return current == Status.SUCCEEDED || current == Status.FAILED || current == Status.CANCELLED;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public String getCreatedAt() {
+		return format(createdAt);
+	}
+
+	public String getStartedAt() {
+		return format(startedAt);
+	}
+
+	public String getFinishedAt() {
+		return format(finishedAt);
+	}
+
+	public long getBytesRead() {
+		return bytesRead.get();
+	}
+
+	public long getDocumentsWritten() {
+		return documentsWritten.get();
+	}
+
+	public double getDocumentsPerSecond() {
+		return perSecond(documentsWritten.get());
+	}
+
+	public double getBytesPerSecond() {
+		return perSecond(bytesRead.get());
+	}
+
+	/** Finished sources of a multi-source import, in completion order; empty otherwise. */
+	public List<SourceImportResult> getSources() {
+		return sources;
+	}
+
+	public String getResult() {
+		return result;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	// plain strings: the shared ObjectMapper has no java.time module
+	private static String format(Instant instant) {
+		return instant != null ? instant.toString() : null;
+	}
+
+	private double perSecond(long count) {
+		Instant start = startedAt;
+		if (start == null) {
+			return 0;
+		}
+		Instant end = finishedAt != null ? finishedAt : Instant.now();
+		long millis = Math.max(1, Duration.between(start, end).toMillis());
+		return count * 1000.0 / millis;
+	}
+}
@@ -0,0 +1,118 @@
+package com.wareable.userservice.importer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs imports in the background so the HTTP request only submits them.
+ * <p>
+ * Each job runs on its own thread of a pool sized to
+ * {@code userservice.import.max-concurrent-jobs}, the number of jobs that may
+ * run at once; further submissions are refused rather than queued. Finished jobs stay queryable
+ * for {@code userservice.import.job-retention-minutes}.
+ */
+@Service
+public class ImportJobService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+
+	/** The work of a job; reports progress through the job it is given. */
+	@FunctionalInterface
+	public interface ImportTask {
+		Object run(ImportProgress progress) throws Exception;
+	}
+
+	private final ConcurrentHashMap<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+	private final Semaphore slots;
+
+	private final Duration retention;
+
+	private final ExecutorService executor;
+
+	public ImportJobService(@Value("${userservice.import.max-concurrent-jobs:4}") int maxConcurrentJobs,
+			@Value("${userservice.import.job-retention-minutes:60}") long retentionMinutes) {
+		this.slots = new Semaphore(Math.max(1, maxConcurrentJobs));
+		this.retention = Duration.ofMinutes(Math.max(1, retentionMinutes));
+		this.executor = ImportThreads.newBoundedExecutor("import-job-", maxConcurrentJobs);
+	}
+
+	@PreDestroy
+	public void stop() {
+		jobs.values().forEach(ImportJob::cancel);
+		executor.shutdownNow();
+	}
+
+	/** Starts {@code task} as a new job, or returns empty if the concurrent job limit is reached. */
+	public Optional<ImportJob> submit(ImportJob.Type type, String source, ImportTask task) {
+		pruneFinished();
+		if (!slots.tryAcquire()) {
+			return Optional.empty();
+		}
+
+		ImportJob job = new ImportJob(UUID.randomUUID().toString(), type, source);
+		jobs.put(job.getId(), job);
+		try {
+			job.setFuture(executor.submit(() -> run(job, task)));
+		} catch (RuntimeException e) {
+			slots.release();
+			jobs.remove(job.getId());
+			throw e;
+		}
+		return Optional.of(job);
+	}
+
+	public Optional<ImportJob> get(String id) {
+		return Optional.ofNullable(jobs.get(id));
+	}
+
+	public List<ImportJob> list() {
+		return jobs.values().stream().sorted(Comparator.comparing(ImportJob::created).reversed()).toList();
+	}
+
+	/** Requests cancellation; returns false if the job is unknown or already finished. */
+	public boolean cancel(String id) {
+		ImportJob job = jobs.get(id);
+		return job != null && job.cancel();
+	}
+
+	private void run(ImportJob job, ImportTask task) {
+		try {
+			if (job.isCancelRequested()) {
+				job.cancelled();
+				return;
+			}
+			job.started();
+			Object result = task.run(job);
+			if (job.isCancelRequested()) {
+				job.cancelled();
+			} else {
+				job.succeeded(result != null ? result.toString() : null);
+			}
+		} catch (Exception e) {
+			logger.warn("Import job {} from {} failed: {}", job.getId(), job.getSource(), e.getMessage());
+			job.failed(e);
+		} finally {
+			slots.release();
+		}
+	}
+
+	private void pruneFinished() {
+		Instant cutoff = Instant.now().minus(retention);
+		jobs.values().removeIf(job -> job.finishedBefore(cutoff));
+	}
+}
@@ -0,0 +1,27 @@
+package com.wareable.userservice.importer;
+
+import java.io.InputStream;
+
+/** Receives progress from an import while it runs. */
+public interface ImportProgress {
+
+	ImportProgress NONE = new ImportProgress() {
+		@Override
+		public InputStream track(InputStream in) {
+			return in;
+		}
+
+		@Override
+		public void documentsWritten(long count) {
+		}
+	};
+
+	/** Wraps the source stream so the bytes read can be counted (and the import aborted). */
+	InputStream track(InputStream in);
+
+	void documentsWritten(long count);
+
+	/** Called by multi-source imports as each source completes. */
+	default void sourceFinished(SourceImportResult source) {
+	}
+}
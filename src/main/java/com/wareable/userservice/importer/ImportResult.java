@@ -0,0 +1,108 @@
+package com.wareable.userservice.importer;
+
+public class ImportResult {
+	private final long documents;
+	private final long batches;
+	private final long skipped;
+	private final boolean notModified;
+	private final boolean delta;
+	private final long inserted;
+	private final long replaced;
+	private final long unchanged;
+	private final long tombstoned;
+	private final long failed;
+
+	public ImportResult(long documents, long batches, long skipped) {
+		this(documents, batches, skipped, false, false, documents, 0, 0, 0, 0);
+	}
+
+	private ImportResult(long documents, long batches, long skipped, boolean notModified, boolean delta,
+			long inserted, long replaced, long unchanged, long tombstoned, long failed) {
+		this.documents = documents;
+		this.batches = batches;
+		this.skipped = skipped;
+		this.notModified = notModified;
+		this.delta = delta;
+		this.inserted = inserted;
+		this.replaced = replaced;
+		this.unchanged = unchanged;
+		this.tombstoned = tombstoned;
+		this.failed = failed;
+	}
+
+	/** The source answered 304: nothing was read or written. */
+	public static ImportResult notModified() {
+		return new ImportResult(0, 0, 0, true, false, 0, 0, 0, 0, 0);
+	}
+
+	static ImportResult delta(long documents, long batches, long skipped, long inserted, long replaced,
+			long unchanged, long tombstoned, long failed) {
+		return new ImportResult(documents, batches, skipped, false, true, inserted, replaced, unchanged, tombstoned,
+				failed);
+	}
+
+	/** Combines the results of parts of one import, e.g. the chunks of a file. */
+	ImportResult plus(ImportResult other) {
+		return new ImportResult(documents + other.documents, batches + other.batches, skipped + other.skipped,
+				notModified && other.notModified, delta || other.delta, inserted + other.inserted,
+				replaced + other.replaced, unchanged + other.unchanged, tombstoned + other.tombstoned,
+				failed + other.failed);
+	}
+
+	/** Documents parsed from the source. */
+	public long getDocuments() {
+		return documents;
+	}
+
+	public long getBatches() {
+		return batches;
+	}
+
+	/** Non-object values, plus in delta mode keys repeated within a batch. */
+	public long getSkipped() {
+		return skipped;
+	}
+
+	public boolean isNotModified() {
+		return notModified;
+	}
+
+	public boolean isDelta() {
+		return delta;
+	}
+
+	public long getInserted() {
+		return inserted;
+	}
+
+	/** Delta mode: stored documents whose content changed. */
+	public long getReplaced() {
+		return replaced;
+	}
+
+	/** Delta mode: documents identical to the stored ones, not written. */
+	public long getUnchanged() {
+		return unchanged;
+	}
+
+	/** Delta mode: stored documents no longer in the source, marked deleted. */
+	public long getTombstoned() {
+		return tombstoned;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	@Override
+	public String toString() {
+		if (notModified) {
+			return "not modified";
+		}
+		if (delta) {
+			return "documents: " + documents + ", inserted: " + inserted + ", replaced: " + replaced + ", unchanged: "
+					+ unchanged + ", tombstoned: " + tombstoned + ", failed: " + failed + ", skipped: " + skipped;
+		}
+		return "documents: " + documents + ", batches: " + batches + ", skipped: " + skipped;
+	}
+}
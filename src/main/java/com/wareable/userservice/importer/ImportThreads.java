@@ -0,0 +1,32 @@
+package com.wareable.userservice.importer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for import work, which mostly waits on the network and MongoDB.
+ * <p>
+ * The service targets Java 17, which has no virtual threads, so this is a
+ * fixed pool of daemon platform threads. Callers size it to the limit they
+ * already enforce (concurrent jobs, concurrent sources), so no task ever
+ * waits for a thread it is allowed to have.
+ */
+final class ImportThreads {
+
+	private ImportThreads() {
+	}
+
+	static ExecutorService newBoundedExecutor(String namePrefix, int threads) {
+		AtomicInteger count = new AtomicInteger();
+		int poolSize = Math.max(1, threads);
+		return new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+}
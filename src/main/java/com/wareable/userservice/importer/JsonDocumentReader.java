@@ -0,0 +1,127 @@
+package com.wareable.userservice.importer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Turns a JSON stream into BSON {@link Document}s one at a time, straight from
+ * the parser's tokens. A top-level array yields each of its objects, a
+ * top-level object yields itself; scalars and nested arrays at the top level
+ * are skipped. Only the current document is ever held in memory.
+ */
+final class JsonDocumentReader {
+
+	private final JsonParser parser;
+
+	private boolean inArray;
+
+	private boolean done;
+
+	private long skipped;
+
+	JsonDocumentReader(JsonParser parser) {
+		this.parser = parser;
+	}
+
+	/** Returns the next document, or {@code null} at the end of the input. */
+	Document next() throws IOException {
+		while (!done) {
+			JsonToken token = parser.nextToken();
+			if (token == null) {
+				done = true;
+				return null;
+			}
+			if (!inArray && token == JsonToken.START_ARRAY) {
+				inArray = true;
+				continue;
+			}
+			if (inArray && token == JsonToken.END_ARRAY) {
+				inArray = false;
+				continue;
+			}
+			if (token == JsonToken.START_OBJECT) {
+				return readObject();
+			}
+			// a scalar or nested array where a document was expected
+			parser.skipChildren();
+			skipped++;
+		}
+		return null;
+	}
+
+	/** Top-level values that were not objects and therefore not imported. */
+	long getSkipped() {
+		return skipped;
+	}
+
+	private Document readObject() throws IOException {
+		Document document = new Document();
+		JsonToken token;
+		while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+			String name = parser.currentName();
+			parser.nextToken();
+			document.put(name, readValue());
+		}
+		if (token != JsonToken.END_OBJECT) {
+			throw new JsonParseException(parser, "Unexpected end of object");
+		}
+		return document;
+	}
+
+	private List<Object> readArray() throws IOException {
+		List<Object> values = new ArrayList<>();
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			if (parser.currentToken() == null) {
+				throw new JsonParseException(parser, "Unexpected end of array");
+			}
+			values.add(readValue());
+		}
+		return values;
+	}
+
+	private Object readValue() throws IOException {
+		switch (parser.currentToken()) {
+		case START_OBJECT:
+			return readObject();
+		case START_ARRAY:
+			return readArray();
+		case VALUE_STRING:
+			return parser.getText();
+		case VALUE_NUMBER_INT:
+			return readInteger();
+		case VALUE_NUMBER_FLOAT:
+			return parser.getDoubleValue();
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+		case VALUE_NULL:
+			return null;
+		default:
+			throw new JsonParseException(parser, "Unexpected token " + parser.currentToken());
+		}
+	}
+
+	private Object readInteger() throws IOException {
+		switch (parser.getNumberType()) {
+		case INT:
+			return parser.getIntValue();
+		case LONG:
+			return parser.getLongValue();
+		default:
+			// BSON has no big integer; Decimal128 keeps up to 34 digits exactly
+			BigInteger value = parser.getBigIntegerValue();
+			return value.abs().toString().length() <= 34 ? new Decimal128(new BigDecimal(value)) : value.toString();
+		}
+	}
+}
@@ -0,0 +1,366 @@
+package com.wareable.userservice.importer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wareable.userservice.payload.request.ExternalUser;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Imports large local JSON dumps in parallel. The file is memory-mapped and
+ * cut into chunks of about {@code userservice.import.files.chunk-bytes} at
+ * record boundaries: after a newline for NDJSON, after a top-level comma for
+ * a JSON array. Each chunk is mapped, parsed and bulk-written on its own
+ * thread, at most {@code parallelism} at a time. Finding the cuts of an array
+ * is one sequential pass of byte comparisons; it hands out each chunk as soon
+ * as its end is known, so parsing starts right away.
+ * <p>
+ * Only files under {@code userservice.import.files.base-directory} can be
+ * read; with no base directory, file imports are disabled.
+ */
+@Component
+public class MappedFileImporter {
+
+	public enum Format {
+		JSON_ARRAY, NDJSON
+	}
+
+	public enum Target {
+		RAW, USERS
+	}
+
+	/** Largest region mapped at once while looking for chunk boundaries. */
+	private static final int SCAN_WINDOW = 64 * 1024 * 1024;
+
+	private static final byte[] OPEN_ARRAY = { '[' };
+
+	private static final byte[] CLOSE_ARRAY = { ']' };
+
+	private final StreamingJsonImporter streamingJsonImporter;
+
+	private final UserUpsertImporter userUpsertImporter;
+
+	private final ObjectMapper objectMapper;
+
+	private final Path baseDirectory;
+
+	private final long chunkBytes;
+
+	private final int batchSize;
+
+	private final ExecutorService executor;
+
+	public MappedFileImporter(StreamingJsonImporter streamingJsonImporter, UserUpsertImporter userUpsertImporter,
+			ObjectMapper objectMapper, @Value("${userservice.import.files.base-directory:}") String baseDirectory,
+			@Value("${userservice.import.files.chunk-bytes:33554432}") long chunkBytes,
+			@Value("${userservice.import.files.parallelism:0}") int parallelism,
+			@Value("${userservice.import.batch-size:1000}") int batchSize) {
+		this.streamingJsonImporter = streamingJsonImporter;
+		this.userUpsertImporter = userUpsertImporter;
+		this.objectMapper = objectMapper;
+		this.baseDirectory = baseDirectory.isBlank() ? null : Path.of(baseDirectory).toAbsolutePath().normalize();
+		// a chunk is mapped as one buffer, which cannot exceed 2 GB
+		this.chunkBytes = Math.min(Math.max(1024 * 1024, chunkBytes), Integer.MAX_VALUE / 2);
+		this.batchSize = Math.max(1, batchSize);
+		int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		AtomicInteger count = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "file-import-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Resolves {@code relativePath} against the base directory, rejecting paths
+	 * that leave it (also through symbolic links) or are not regular files.
+	 */
+	public Path resolve(String relativePath) throws IOException {
+		if (baseDirectory == null) {
+			throw new IllegalArgumentException("File imports are disabled: userservice.import.files.base-directory is not set");
+		}
+		Path file = baseDirectory.resolve(relativePath).normalize();
+		if (!file.startsWith(baseDirectory)) {
+			throw new IllegalArgumentException("Path is outside the import directory: " + relativePath);
+		}
+		try {
+			Path real = file.toRealPath();
+			if (!real.startsWith(baseDirectory.toRealPath()) || !Files.isRegularFile(real)) {
+				throw new IllegalArgumentException("Not a file in the import directory: " + relativePath);
+			}
+			return real;
+		} catch (NoSuchFileException e) {
+			throw new IllegalArgumentException("No such file: " + relativePath);
+		}
+	}
+
+	/** The name a file's documents are tagged with, relative to the base directory. */
+	public String sourceOf(Path file) throws IOException {
+		return "file:" + baseDirectory.toRealPath().relativize(file).toString().replace('\\', '/');
+	}
+
+	/**
+	 * Imports {@code file} into {@code target}. A null {@code format} is
+	 * detected from the extension ({@code .ndjson}, {@code .jsonl}) or the first
+	 * character. {@code delta} applies to raw imports only and cannot tombstone,
+	 * since each chunk is merged separately. Chunks that carry the same key or
+	 * username may race to insert it; the loser is retried as an update, so the
+	 * chunk written last wins.
+	 */
+	public FileImportResult importFile(Path file, Format format, Target target, DeltaOptions delta,
+			ImportProgress progress) throws IOException, InterruptedException {
+		if (delta != null && delta.isTombstone()) {
+			throw new IllegalArgumentException("Tombstoning is not supported for file imports");
+		}
+		String source = sourceOf(file);
+		long start = System.nanoTime();
+		AtomicLong documents = new AtomicLong();
+		ChunkRun run = new ChunkRun(target, source, delta, documents, progress);
+		List<Future<Object>> futures = new ArrayList<>();
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			Format resolved = format != null ? format : detect(file, channel);
+			try {
+				if (resolved == Format.NDJSON) {
+					for (long from = 0; from < size;) {
+						long to = Math.min(size, nextNewline(channel, from + chunkBytes, size));
+						futures.add(submit(channel, from, to, resolved, run));
+						from = to;
+					}
+				} else {
+					splitArray(channel, size, chunkBytes, (from, to) -> futures
+							.add(submit(channel, from, to, resolved, run)));
+				}
+
+				Object total = target == Target.USERS ? new UserImportSummary(0, 0, 0, 0, 0) : new ImportResult(0, 0, 0);
+				for (Future<Object> future : futures) {
+					total = combine(total, future.get());
+				}
+				long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+				return new FileImportResult(source, resolved, target, futures.size(), size, documents.get(), durationMs,
+						total.toString());
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException io) {
+					throw io;
+				}
+				throw new IOException(e.getCause());
+			} finally {
+				// on failure or interruption the remaining chunks are abandoned
+				futures.forEach(future -> future.cancel(true));
+			}
+		}
+	}
+
+	@FunctionalInterface
+	interface ChunkConsumer {
+		void accept(long from, long to) throws IOException;
+	}
+
+	/** What all chunks of one file import share. */
+	private record ChunkRun(Target target, String source, DeltaOptions delta, AtomicLong documents,
+			ImportProgress progress, ConcurrentMap<String, Integer> occurrences) {
+
+		ChunkRun(Target target, String source, DeltaOptions delta, AtomicLong documents, ImportProgress progress) {
+			this(target, source, delta, documents, progress, new ConcurrentHashMap<>());
+		}
+	}
+
+	private Future<Object> submit(FileChannel channel, long from, long to, Format format, ChunkRun run) {
+		return executor.submit(() -> importChunk(channel, from, to, format, run));
+	}
+
+	private Object importChunk(FileChannel channel, long from, long to, Format format, ChunkRun run)
+			throws IOException {
+		Target target = run.target();
+		AtomicLong documents = run.documents();
+		ImportProgress progress = run.progress();
+		MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+		InputStream in = progress.track(new ByteBufferInputStream(region));
+		if (format == Format.JSON_ARRAY) {
+			// a chunk holds the elements between two top-level commas; brackets make it an array again
+			in = new SequenceInputStream(Collections.enumeration(
+					List.of(new ByteArrayInputStream(OPEN_ARRAY), in, new ByteArrayInputStream(CLOSE_ARRAY))));
+		}
+
+		if (target == Target.RAW) {
+			ImportResult result = streamingJsonImporter.importFrom(in, StreamingJsonImporter.RAW_DATA_COLLECTION,
+					run.source(), run.delta(), run.occurrences(), progress);
+			documents.addAndGet(result.getDocuments());
+			return result;
+		}
+
+		UserImportSummary summary = new UserImportSummary(0, 0, 0, 0, 0);
+		try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			JsonDocumentReader reader = new JsonDocumentReader(parser);
+			List<ExternalUser> batch = new ArrayList<>(batchSize);
+			Document document;
+			while ((document = reader.next()) != null) {
+				batch.add(toExternalUser(document));
+				if (batch.size() == batchSize) {
+					summary = summary.plus(userUpsertImporter.upsert(batch, progress));
+					documents.addAndGet(batch.size());
+					batch.clear();
+				}
+			}
+			if (!batch.isEmpty()) {
+				summary = summary.plus(userUpsertImporter.upsert(batch, progress));
+				documents.addAndGet(batch.size());
+			}
+			return summary.plus(new UserImportSummary(0, 0, 0, 0, reader.getSkipped()));
+		}
+	}
+
+	/**
+	 * Walks the top level of a JSON array, calling {@code chunks} with ranges
+	 * of whole elements of about {@code chunkBytes} each, separators excluded.
+	 */
+	static void splitArray(FileChannel channel, long size, long chunkBytes, ChunkConsumer chunks) throws IOException {
+		int depth = 0;
+		boolean inString = false;
+		boolean escaped = false;
+		boolean started = false;
+		long chunkStart = -1;
+
+		for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW) {
+			int length = (int) Math.min(SCAN_WINDOW, size - windowStart);
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+			for (int i = 0; i < length; i++) {
+				byte b = window.get(i);
+				long position = windowStart + i;
+				if (inString) {
+					if (escaped) {
+						escaped = false;
+					} else if (b == '\\') {
+						escaped = true;
+					} else if (b == '"') {
+						inString = false;
+					}
+					continue;
+				}
+				if (!started) {
+					if (b == '[') {
+						started = true;
+						chunkStart = position + 1;
+					} else if (!isWhitespace(b)) {
+						throw new IOException("Not a JSON array: unexpected '" + (char) b + "' at offset " + position);
+					}
+					continue;
+				}
+				switch (b) {
+				case '"' -> inString = true;
+				case '{', '[' -> depth++;
+				case '}' -> depth--;
+				case ']' -> {
+					if (depth == 0) {
+						chunks.accept(chunkStart, position);
+						return;
+					}
+					depth--;
+				}
+				case ',' -> {
+					if (depth == 0 && position - chunkStart >= chunkBytes) {
+						chunks.accept(chunkStart, position);
+						chunkStart = position + 1;
+					}
+				}
+				default -> {
+				}
+				}
+			}
+		}
+		throw new IOException("Unterminated JSON array");
+	}
+
+	/** Offset just past the first newline at or after {@code from}, or {@code size}. */
+	static long nextNewline(FileChannel channel, long from, long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		for (long position = from; position < size;) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	private static Format detect(Path file, FileChannel channel) throws IOException {
+		String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+		if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+			return Format.NDJSON;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		for (long position = 0; channel.read(buffer.clear(), position) > 0; position += buffer.position()) {
+			for (int i = 0; i < buffer.position(); i++) {
+				byte b = buffer.get(i);
+				if (!isWhitespace(b)) {
+					return b == '[' ? Format.JSON_ARRAY : Format.NDJSON;
+				}
+			}
+		}
+		return Format.NDJSON;
+	}
+
+	private static boolean isWhitespace(byte b) {
+		// a UTF-8 byte order mark is tolerated as well
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == (byte) 0xEF || b == (byte) 0xBB
+				|| b == (byte) 0xBF;
+	}
+
+	private static Object combine(Object total, Object chunk) {
+		if (total instanceof UserImportSummary users) {
+			return users.plus((UserImportSummary) chunk);
+		}
+		return ((ImportResult) total).plus((ImportResult) chunk);
+	}
+
+	private static ExternalUser toExternalUser(Document document) {
+		ExternalUser user = new ExternalUser();
+		user.setName(Objects.toString(document.get("name"), null));
+		user.setUsername(Objects.toString(document.get("username"), null));
+		user.setEmail(Objects.toString(document.get("email"), null));
+		return user;
+	}
+}
@@ -0,0 +1,31 @@
+package com.wareable.userservice.importer;
+
+import java.util.List;
+
+public class MultiSourceImportSummary {
+	private final List<SourceImportResult> sources;
+
+	public MultiSourceImportSummary(List<SourceImportResult> sources) {
+		this.sources = List.copyOf(sources);
+	}
+
+	public List<SourceImportResult> getSources() {
+		return sources;
+	}
+
+	public long getDocuments() {
+		return sources.stream().mapToLong(SourceImportResult::getDocuments).sum();
+	}
+
+	public long count(SourceImportResult.Status status) {
+		return sources.stream().filter(source -> source.getStatus() == status).count();
+	}
+
+	@Override
+	public String toString() {
+		return "sources: " + sources.size() + ", succeeded: " + count(SourceImportResult.Status.SUCCEEDED)
+				+ ", not modified: " + count(SourceImportResult.Status.NOT_MODIFIED) + ", failed: "
+				+ count(SourceImportResult.Status.FAILED) + ", timed out: " + count(SourceImportResult.Status.TIMED_OUT)
+				+ ", documents: " + getDocuments();
+	}
+}
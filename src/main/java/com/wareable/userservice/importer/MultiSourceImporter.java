@@ -0,0 +1,212 @@
+package com.wareable.userservice.importer;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Imports many sources concurrently, one task per source. At most
+ * {@code userservice.import.multi.max-concurrent-sources} run at once, one per
+ * thread of a pool of that size, and at most {@code max-per-host} per host. A
+ * source whose host is busy waits in that host's queue, not on a pool thread,
+ * so a busy host never holds up sources of other hosts. The limits are shared
+ * by all running jobs. Each source fails on its own, or is interrupted once it
+ * has run for {@code source-timeout-seconds}; the rest carry on.
+ */
+@Component
+public class MultiSourceImporter {
+
+	/** Imports one source. */
+	@FunctionalInterface
+	public interface SourceTask {
+		ImportResult run(String url) throws Exception;
+	}
+
+	private final ExecutorService executor;
+
+	private final ScheduledExecutorService watchdogs = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "import-source-watchdog");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// guarded by itself
+	private final Map<String, HostSlots> hostSlots = new HashMap<>();
+
+	private final int maxPerHost;
+
+	private final long sourceTimeoutMs;
+
+	public MultiSourceImporter(@Value("${userservice.import.multi.max-concurrent-sources:8}") int maxConcurrentSources,
+			@Value("${userservice.import.multi.max-per-host:2}") int maxPerHost,
+			@Value("${userservice.import.multi.source-timeout-seconds:300}") long sourceTimeoutSeconds) {
+		this.executor = ImportThreads.newBoundedExecutor("import-source-", maxConcurrentSources);
+		this.maxPerHost = Math.max(1, maxPerHost);
+		this.sourceTimeoutMs = TimeUnit.SECONDS.toMillis(Math.max(1, sourceTimeoutSeconds));
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+		watchdogs.shutdownNow();
+	}
+
+	/**
+	 * Runs {@code task} for every distinct url and waits for all of them. If the
+	 * calling thread is interrupted the remaining sources are cancelled.
+	 */
+	public MultiSourceImportSummary importAll(List<String> urls, SourceTask task, ImportProgress progress)
+			throws InterruptedException {
+		List<String> distinct = new ArrayList<>(new LinkedHashSet<>(urls));
+		List<Future<SourceImportResult>> futures = new ArrayList<>(distinct.size());
+		for (String url : distinct) {
+			FutureTask<SourceImportResult> future = new FutureTask<>(() -> runSource(url, task, progress));
+			futures.add(future);
+			start(hostOf(url), future);
+		}
+
+		List<SourceImportResult> results = new ArrayList<>(distinct.size());
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				results.add(await(distinct.get(i), futures.get(i)));
+			}
+		} finally {
+			futures.forEach(future -> future.cancel(true));
+		}
+		return new MultiSourceImportSummary(results);
+	}
+
+	private SourceImportResult runSource(String url, SourceTask task, ImportProgress progress) {
+		SourceImportResult result = runWithTimeout(url, task);
+		progress.sourceFinished(result);
+		return result;
+	}
+
+	/** Runs {@code source} now if its host has a free slot, otherwise queues it behind the host's running sources. */
+	private void start(String host, FutureTask<SourceImportResult> source) {
+		Runnable run = () -> {
+			try {
+				// a cancelled source returns at once
+				source.run();
+			} finally {
+				finished(host);
+			}
+		};
+		synchronized (hostSlots) {
+			HostSlots slots = hostSlots.computeIfAbsent(host, key -> new HostSlots());
+			if (slots.running >= maxPerHost) {
+				slots.waiting.add(run);
+				return;
+			}
+			slots.running++;
+		}
+		executor.execute(run);
+	}
+
+	/**
+	 * Hands the slot of a finished source to the next one waiting for the same
+	 * host. A host with nothing running or waiting is forgotten, so the map only
+	 * holds hosts that are currently being imported from.
+	 */
+	private void finished(String host) {
+		Runnable next;
+		synchronized (hostSlots) {
+			HostSlots slots = hostSlots.get(host);
+			next = slots.waiting.poll();
+			if (next == null) {
+				if (--slots.running == 0) {
+					hostSlots.remove(host);
+				}
+				return;
+			}
+		}
+		executor.execute(next);
+	}
+
+	private SourceImportResult runWithTimeout(String url, SourceTask task) {
+		Thread worker = Thread.currentThread();
+		AtomicBoolean finished = new AtomicBoolean();
+		ScheduledFuture<?> watchdog = watchdogs.schedule(() -> {
+			if (finished.compareAndSet(false, true)) {
+				worker.interrupt();
+			}
+		}, sourceTimeoutMs, TimeUnit.MILLISECONDS);
+
+		long start = System.nanoTime();
+		SourceImportResult.Status status;
+		ImportResult imported = null;
+		String error = null;
+		try {
+			imported = task.run(url);
+			status = imported.isNotModified() ? SourceImportResult.Status.NOT_MODIFIED
+					: SourceImportResult.Status.SUCCEEDED;
+		} catch (Exception e) {
+			status = SourceImportResult.Status.FAILED;
+			error = rootMessage(e);
+		}
+		watchdog.cancel(false);
+		if (!finished.compareAndSet(false, true)) {
+			// the watchdog fired: clear its interrupt, whatever the task made of it
+			Thread.interrupted();
+			status = SourceImportResult.Status.TIMED_OUT;
+			error = "Timed out after " + TimeUnit.MILLISECONDS.toSeconds(sourceTimeoutMs) + "s";
+		}
+		long documents = imported != null ? imported.getDocuments() : 0;
+		long skipped = imported != null ? imported.getSkipped() : 0;
+		return new SourceImportResult(url, status, documents, skipped, elapsedMs(start), error);
+	}
+
+	private static final class HostSlots {
+		int running;
+		final Deque<Runnable> waiting = new ArrayDeque<>();
+	}
+
+	private static SourceImportResult await(String url, Future<SourceImportResult> future)
+			throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			return new SourceImportResult(url, SourceImportResult.Status.FAILED, 0, 0, 0, rootMessage(e));
+		}
+	}
+
+	private static String hostOf(String url) {
+		try {
+			String host = URI.create(url).getHost();
+			return host != null ? host.toLowerCase() : url;
+		} catch (IllegalArgumentException e) {
+			return url;
+		}
+	}
+
+	private static long elapsedMs(long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
+	private static String rootMessage(Throwable e) {
+		Throwable root = e;
+		while (root.getCause() != null && root.getCause() != root) {
+			root = root.getCause();
+		}
+		return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+	}
+}
@@ -0,0 +1,50 @@
+package com.wareable.userservice.importer;
+
+/** Outcome of one source of a multi-source import. */
+public class SourceImportResult {
+
+	public enum Status {
+		SUCCEEDED, NOT_MODIFIED, FAILED, TIMED_OUT
+	}
+
+	private final String url;
+	private final Status status;
+	private final long documents;
+	private final long skipped;
+	private final long durationMs;
+	private final String error;
+
+	SourceImportResult(String url, Status status, long documents, long skipped, long durationMs, String error) {
+		this.url = url;
+		this.status = status;
+		this.documents = documents;
+		this.skipped = skipped;
+		this.durationMs = durationMs;
+		this.error = error;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public long getDocuments() {
+		return documents;
+	}
+
+	public long getSkipped() {
+		return skipped;
+	}
+
+	/** Wall time from acquiring a slot to finishing; waiting for a slot is not counted. */
+	public long getDurationMs() {
+		return durationMs;
+	}
+
+	public String getError() {
+		return error;
+	}
+}
@@ -0,0 +1,153 @@
+package com.wareable.userservice.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Imports a JSON payload of any size into a collection with constant memory:
+ * the stream is parsed token by token and documents are inserted in batches
+ * of {@code userservice.import.batch-size}, so at most one batch is held at a
+ * time. In delta mode each batch is compared with what the source stored
+ * before (see {@link DeltaWriter}) instead of being inserted blindly.
+ */
+@Component
+public class StreamingJsonImporter {
+
+	/** Where imports of unstructured JSON land. */
+	public static final String RAW_DATA_COLLECTION = "external_raw_data";
+
+	/** Field holding the URL or file a document was imported from. */
+	public static final String SOURCE_FIELD = "_source";
+
+	/** Set, to the time of deletion, on delta-imported documents that left their source. */
+	public static final String DELETED_FIELD = "_deleted";
+
+	static final String DELTA_INDEX = "source_key";
+
+	private final MongoTemplate mongoTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final int batchSize;
+
+	private final Set<String> deltaIndexed = ConcurrentHashMap.newKeySet();
+
+	public StreamingJsonImporter(MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+			@Value("${userservice.import.batch-size:1000}") int batchSize) {
+		this.mongoTemplate = mongoTemplate;
+		this.objectMapper = objectMapper;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/** Reads {@code in} to the end and inserts every document into {@code collection}. Does not close {@code in}. */
+	public ImportResult importFrom(InputStream in, String collection) throws IOException {
+		return importFrom(in, collection, ImportProgress.NONE);
+	}
+
+	/** As {@link #importFrom(InputStream, String)}, reporting each inserted batch to {@code progress}. */
+	public ImportResult importFrom(InputStream in, String collection, ImportProgress progress) throws IOException {
+		return importFrom(in, collection, null, progress);
+	}
+
+	/**
+	 * As {@link #importFrom(InputStream, String, ImportProgress)}, tagging every
+	 * document with {@code source} in {@value #SOURCE_FIELD} unless it is null.
+	 */
+	public ImportResult importFrom(InputStream in, String collection, String source, ImportProgress progress)
+			throws IOException {
+		return importFrom(in, collection, source, null, progress);
+	}
+
+	/**
+	 * As {@link #importFrom(InputStream, String, String, ImportProgress)}; with
+	 * {@code delta} set, documents are matched against what {@code source}
+	 * stored before and only new or changed ones are written.
+	 */
+	public ImportResult importFrom(InputStream in, String collection, String source, DeltaOptions delta,
+			ImportProgress progress) throws IOException {
+		return importFrom(in, collection, source, delta, new ConcurrentHashMap<>(), progress);
+	}
+
+	/**
+	 * Imports one part of a larger run; parts of the same run share
+	 * {@code occurrences}, so repeated records are numbered across all of them.
+	 */
+	ImportResult importFrom(InputStream in, String collection, String source, DeltaOptions delta,
+			ConcurrentMap<String, Integer> occurrences, ImportProgress progress) throws IOException {
+		DeltaWriter deltaWriter = null;
+		if (delta != null) {
+			if (source == null) {
+				throw new IllegalArgumentException("A delta import needs a source");
+			}
+			ensureDeltaIndex(collection);
+			deltaWriter = new DeltaWriter(mongoTemplate, collection, source, delta, occurrences);
+		}
+
+		long documents = 0;
+		long batches = 0;
+		try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			JsonDocumentReader reader = new JsonDocumentReader(parser);
+			List<Document> batch = new ArrayList<>(batchSize);
+			Document document;
+			while ((document = reader.next()) != null) {
+				batch.add(document);
+				if (batch.size() == batchSize) {
+					flush(batch, collection, source, deltaWriter);
+					documents += batchSize;
+					batches++;
+					progress.documentsWritten(batchSize);
+				}
+			}
+			if (!batch.isEmpty()) {
+				int size = batch.size();
+				flush(batch, collection, source, deltaWriter);
+				documents += size;
+				batches++;
+				progress.documentsWritten(size);
+			}
+			if (deltaWriter != null) {
+				return deltaWriter.finish(documents, batches, reader.getSkipped());
+			}
+			return new ImportResult(documents, batches, reader.getSkipped());
+		}
+	}
+
+	private void flush(List<Document> batch, String collection, String source, DeltaWriter deltaWriter) {
+		if (deltaWriter != null) {
+			deltaWriter.write(batch);
+		} else {
+			if (source != null) {
+				batch.forEach(document -> document.put(SOURCE_FIELD, source));
+			}
+			mongoTemplate.insert(batch, collection);
+		}
+		batch.clear();
+	}
+
+	private void ensureDeltaIndex(String collection) {
+		if (deltaIndexed.add(collection)) {
+			// unique per source and key; append-mode documents have no key and are left out
+			mongoTemplate.indexOps(collection).ensureIndex(new Index().on(SOURCE_FIELD, Sort.Direction.ASC)
+					.on(DeltaWriter.KEY_FIELD, Sort.Direction.ASC).unique().named(DELTA_INDEX)
+					.partial(PartialIndexFilter.of(Criteria.where(DeltaWriter.KEY_FIELD).exists(true))));
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.wareable.userservice.importer;
+
+public class UserImportSummary {
+	private final long inserted;
+	private final long updated;
+	private final long unchanged;
+	private final long failed;
+	private final long skipped;
+	private final boolean notModified;
+
+	public UserImportSummary(long inserted, long updated, long unchanged, long failed, long skipped) {
+		this(inserted, updated, unchanged, failed, skipped, false);
+	}
+
+	private UserImportSummary(long inserted, long updated, long unchanged, long failed, long skipped,
+			boolean notModified) {
+		this.inserted = inserted;
+		this.updated = updated;
+		this.unchanged = unchanged;
+		this.failed = failed;
+		this.skipped = skipped;
+		this.notModified = notModified;
+	}
+
+	/** The source answered 304: nothing was read or written. */
+	public static UserImportSummary notModified() {
+		return new UserImportSummary(0, 0, 0, 0, 0, true);
+	}
+
+	/** Combines the results of parts of one import, e.g. the chunks of a file. */
+	UserImportSummary plus(UserImportSummary other) {
+		return new UserImportSummary(inserted + other.inserted, updated + other.updated, unchanged + other.unchanged,
+				failed + other.failed, skipped + other.skipped);
+	}
+
+	public long getInserted() {
+		return inserted;
+	}
+
+	public long getUpdated() {
+		return updated;
+	}
+
+	public long getUnchanged() {
+		return unchanged;
+	}
+
+	/** Users rejected by MongoDB, e.g. because their email belongs to another user. */
+	public long getFailed() {
+		return failed;
+	}
+
+	/** Input entries without a username, or repeated within the same batch. */
+	public long getSkipped() {
+		return skipped;
+	}
+
+	public boolean isNotModified() {
+		return notModified;
+	}
+
+	@Override
+	public String toString() {
+		if (notModified) {
+			return "not modified";
+		}
+		return "inserted: " + inserted + ", updated: " + updated + ", unchanged: " + unchanged + ", failed: " + failed
+				+ ", skipped: " + skipped;
+	}
+}
@@ -0,0 +1,123 @@
+package com.wareable.userservice.importer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.wareable.userservice.model.AppUser;
+import com.wareable.userservice.payload.request.ExternalUser;
+
+/**
+ * Writes external users with unordered bulk upserts keyed on username, so an
+ * import can be re-run without creating duplicates. Existing users only get
+ * their email refreshed; the placeholder password is set on insert only.
+ * MongoDB reports matched-but-not-modified documents, which is what makes the
+ * unchanged count free. When concurrent imports upsert the same new username,
+ * the one that loses on the unique index is retried as a plain update.
+ */
+@Component
+public class UserUpsertImporter {
+
+	static final String EXTERNAL_PASSWORD = "external_dummy_password";
+
+	private static final int DUPLICATE_KEY = 11000;
+
+	private final MongoTemplate mongoTemplate;
+
+	private final int batchSize;
+
+	public UserUpsertImporter(MongoTemplate mongoTemplate,
+			@Value("${userservice.import.batch-size:1000}") int batchSize) {
+		this.mongoTemplate = mongoTemplate;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	public UserImportSummary upsert(List<ExternalUser> users) {
+		return upsert(users, ImportProgress.NONE);
+	}
+
+	/** As {@link #upsert(List)}, reporting each written batch to {@code progress}. */
+	public UserImportSummary upsert(List<ExternalUser> users, ImportProgress progress) {
+		long inserted = 0;
+		long updated = 0;
+		long unchanged = 0;
+		long failed = 0;
+		long skipped = 0;
+
+		for (int from = 0; from < users.size(); from += batchSize) {
+			// a username may appear only once per bulk, otherwise two upserts race on the unique index
+			Map<String, ExternalUser> batch = new LinkedHashMap<>();
+			for (ExternalUser user : users.subList(from, Math.min(users.size(), from + batchSize))) {
+				if (user == null || user.getUsername() == null || user.getUsername().isBlank()) {
+					skipped++;
+				} else if (batch.put(user.getUsername(), user) != null) {
+					skipped++;
+				}
+			}
+			if (batch.isEmpty()) {
+				continue;
+			}
+
+			List<Pair<Query, Update>> upserts = batch.values().stream().map(UserUpsertImporter::toUpsert).toList();
+			BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AppUser.class);
+			bulk.upsert(upserts);
+
+			List<Pair<Query, Update>> lost = new ArrayList<>();
+			BulkWriteResult result;
+			try {
+				result = bulk.execute();
+			} catch (BulkOperationException e) {
+				result = e.getResult();
+				for (BulkWriteError error : e.getErrors()) {
+					if (error.getCode() == DUPLICATE_KEY) {
+						lost.add(upserts.get(error.getIndex()));
+					} else {
+						failed++;
+					}
+				}
+			}
+			if (!lost.isEmpty()) {
+				// the username was inserted concurrently; update it like any existing user
+				BulkOperations retry = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AppUser.class);
+				retry.updateOne(lost);
+				BulkWriteResult retried;
+				try {
+					retried = retry.execute();
+				} catch (BulkOperationException e) {
+					retried = e.getResult();
+				}
+				failed += lost.size() - retried.getMatchedCount();
+				updated += retried.getModifiedCount();
+				unchanged += retried.getMatchedCount() - retried.getModifiedCount();
+				progress.documentsWritten(retried.getMatchedCount());
+			}
+			inserted += result.getUpserts().size();
+			updated += result.getModifiedCount();
+			unchanged += result.getMatchedCount() - result.getModifiedCount();
+			progress.documentsWritten(result.getUpserts().size() + result.getMatchedCount());
+		}
+		return new UserImportSummary(inserted, updated, unchanged, failed, skipped);
+	}
+
+	private static Pair<Query, Update> toUpsert(ExternalUser user) {
+		Query query = Query.query(Criteria.where("username").is(user.getUsername()));
+		Update update = new Update().setOnInsert("password", EXTERNAL_PASSWORD);
+		if (user.getEmail() != null) {
+			update.set("email", user.getEmail());
+		}
+		return Pair.of(query, update);
+	}
+}
@@ -0,0 +1,100 @@
+package com.wareable.userservice.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ETag / Last-Modified validators of imported sources, one small properties
+ * file per source, so conditional requests survive restarts. Bodies are not
+ * stored: a 304 means there is nothing to import.
+ */
+final class ValidatorCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ValidatorCache.class);
+
+	record Validators(String etag, String lastModified) {
+	}
+
+	private final Path directory;
+
+	ValidatorCache(Path directory) {
+		this.directory = directory;
+	}
+
+	Optional<Validators> get(String key) {
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(fileFor(key))) {
+			properties.load(in);
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException e) {
+			logger.warn("Could not read cached validators for {}: {}", key, e.getMessage());
+			return Optional.empty();
+		}
+		Validators validators = new Validators(properties.getProperty("etag"), properties.getProperty("last-modified"));
+		return validators.etag() == null && validators.lastModified() == null ? Optional.empty() : Optional.of(validators);
+	}
+
+	void put(String key, Validators validators) {
+		if (validators.etag() == null && validators.lastModified() == null) {
+			remove(key);
+			return;
+		}
+		Properties properties = new Properties();
+		properties.setProperty("source", key);
+		if (validators.etag() != null) {
+			properties.setProperty("etag", validators.etag());
+		}
+		if (validators.lastModified() != null) {
+			properties.setProperty("last-modified", validators.lastModified());
+		}
+		try {
+			Files.createDirectories(directory);
+			Path target = fileFor(key);
+			Path temp = Files.createTempFile(directory, "validators", ".tmp");
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				properties.store(out, null);
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			// only costs a full download next time
+			logger.warn("Could not store validators for {}: {}", key, e.getMessage());
+		}
+	}
+
+	void remove(String key) {
+		try {
+			Files.deleteIfExists(fileFor(key));
+		} catch (IOException e) {
+			logger.warn("Could not remove validators for {}: {}", key, e.getMessage());
+		}
+	}
+
+	private Path fileFor(String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+			return directory.resolve(HexFormat.of().formatHex(digest) + ".properties");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.wareable.userservice.logging;
+
+/**
+ * Hand-off between request threads, which {@link #offer(LogEvent)} events,
+ * and the single flusher thread, which polls and later acknowledges them once
+ * they are safely stored in S3.
+ */
+interface LogBuffer extends AutoCloseable {
+
+	/** Appends an event without blocking; returns {@code false} if there is no room. */
+	boolean offer(LogEvent event);
+
+	/** Removes the oldest event to make room, if the buffer supports it. */
+	boolean discardOldest();
+
+	/** Next unread event, or {@code null}. Flusher thread only. */
+	LogEvent poll();
+
+	/** Opaque read position just after the last polled event. Flusher thread only. */
+	long position();
+
+	/** Marks everything up to {@code position} as shipped. Flusher thread only. */
+	void acknowledge(long position);
+
+	int size();
+
+	@Override
+	void close();
+}
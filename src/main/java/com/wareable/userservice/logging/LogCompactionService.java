@@ -0,0 +1,185 @@
+package com.wareable.userservice.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Background job that merges the per-node segments of a finished day into a
+ * single {@code compacted.log.gz} object plus a {@link LogManifest}, then
+ * removes the segments. Gzip members can be concatenated, so merging is a
+ * byte copy and no log line is decompressed.
+ * <p>
+ * Runs of several nodes would overwrite each other's manifests, so when more
+ * than one node shares the bucket {@code userservice.log.compaction.leader-node}
+ * names the only node that compacts.
+ */
+@Service
+public class LogCompactionService {
+
+	private static final Logger logger = LoggerFactory.getLogger(LogCompactionService.class);
+
+	private final LogObjectStore store;
+
+	private final boolean enabled;
+
+	private final long intervalMinutes;
+
+	private final long graceMinutes;
+
+	private ScheduledExecutorService scheduler;
+
+	public LogCompactionService(LogObjectStore store, @Value("${userservice.log.compaction.enabled:true}") boolean enabled,
+			@Value("${userservice.log.compaction.interval-minutes:60}") long intervalMinutes,
+			@Value("${userservice.log.compaction.grace-minutes:30}") long graceMinutes,
+			@Value("${userservice.log.compaction.leader-node:}") String leaderNode) {
+		this.store = store;
+		// compaction rewrites shared objects, so with several nodes only the leader may run it
+		this.enabled = enabled
+				&& (leaderNode.isBlank() || LogObjectStore.sanitize(leaderNode).equals(store.getNodeId()));
+		this.intervalMinutes = Math.max(1, intervalMinutes);
+		this.graceMinutes = Math.max(0, graceMinutes);
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "log-compactor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::compactFinishedDays, 1, intervalMinutes, TimeUnit.MINUTES);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * Compacts every day that ended more than the grace period ago. Late
+	 * segments from slow nodes are expected to land within that window.
+	 */
+	public void compactFinishedDays() {
+		try {
+			LocalDateTime now = LocalDateTime.now();
+			for (LocalDate date : store.listDates()) {
+				if (date.plusDays(1).atStartOfDay().plusMinutes(graceMinutes).isBefore(now)) {
+					compact(date);
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.warn("Log compaction failed: {}", e.getMessage());
+		}
+	}
+
+	void compact(LocalDate date) {
+		List<S3Object> segments = store.listSegments(date);
+		LogManifest manifest = store.readManifest(date).orElse(null);
+
+		// a previous run may have written the manifest but not finished deleting
+		Set<String> compacted = new HashSet<>();
+		if (manifest != null) {
+			manifest.getSegments().forEach(segment -> compacted.add(segment.getKey()));
+		}
+		List<String> leftovers = segments.stream().map(S3Object::key).filter(compacted::contains).toList();
+		// late segments, e.g. a node replaying its spool after an outage, are appended to the day
+		List<S3Object> pending = segments.stream().filter(object -> !compacted.contains(object.key())).toList();
+
+		if (pending.isEmpty()) {
+			store.delete(leftovers);
+			return;
+		}
+
+		long offset = 0;
+		if (manifest == null) {
+			manifest = new LogManifest();
+			manifest.setDate(date.toString());
+			manifest.setObject(store.compactedKey(date));
+		} else {
+			offset = manifest.getSegments().stream().mapToLong(segment -> segment.getOffset() + segment.getLength())
+					.max().orElse(0);
+		}
+
+		Path merged = null;
+		try {
+			merged = Files.createTempFile("log-compaction-" + date, ".gz");
+			try (OutputStream out = Files.newOutputStream(merged)) {
+				if (offset > 0) {
+					// only the bytes the manifest describes; a run that died before its manifest may have left more
+					try (ResponseInputStream<GetObjectResponse> in = store.openRange(manifest.getObject(), 0, offset)) {
+						if (in.transferTo(out) != offset) {
+							throw new IOException("Compacted object is shorter than its manifest");
+						}
+					}
+				}
+				for (S3Object object : pending) {
+					try (ResponseInputStream<GetObjectResponse> in = store.open(object.key())) {
+						long length = in.transferTo(out);
+						manifest.getSegments().add(describe(object.key(), in.response().metadata(), offset, length));
+						offset += length;
+					}
+				}
+			}
+
+			store.putCompacted(date, merged);
+			store.putManifest(date, manifest);
+			List<String> done = new ArrayList<>(leftovers);
+			pending.forEach(object -> done.add(object.key()));
+			store.delete(done);
+
+			logger.info("Compacted {} log segments for {} into {} bytes", pending.size(), date, offset);
+		} catch (IOException e) {
+			logger.warn("Could not compact logs for {}: {}", date, e.getMessage());
+		} finally {
+			if (merged != null) {
+				try {
+					Files.deleteIfExists(merged);
+				} catch (IOException e) {
+					// temp file, nothing else to do
+				}
+			}
+		}
+	}
+
+	private static LogManifest.Segment describe(String key, Map<String, String> metadata, long offset, long length) {
+		LogManifest.Segment segment = new LogManifest.Segment();
+		segment.setKey(key);
+		String[] parts = key.split("/");
+		segment.setNode(parts[parts.length - 2]);
+		segment.setOffset(offset);
+		segment.setLength(length);
+		segment.setLines(Integer.parseInt(metadata.getOrDefault(LogObjectStore.META_LINES, "0")));
+		segment.setFirstTimestamp(Long.parseLong(metadata.getOrDefault(LogObjectStore.META_FIRST_TS, "0")));
+		segment.setLastTimestamp(Long.parseLong(metadata.getOrDefault(LogObjectStore.META_LAST_TS, "0")));
+		return segment;
+	}
+}
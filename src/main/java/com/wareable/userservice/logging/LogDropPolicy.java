@@ -0,0 +1,11 @@
+package com.wareable.userservice.logging;
+
+/**
+ * What {@link LogUploaderService} does with a new entry when the buffer is full.
+ */
+public enum LogDropPolicy {
+	/** Discard the entry being appended and keep what is already queued. */
+	DROP_NEWEST,
+	/** Evict the oldest queued entry to make room for the new one. */
+	DROP_OLDEST
+}
@@ -0,0 +1,57 @@
+package com.wareable.userservice.logging;
+
+/**
+ * A typed log event. Creating one only captures the timestamp and field
+ * references; rendering it as a line is left to the background flusher, so
+ * callers on hot paths do no string building.
+ */
+public final class LogEvent {
+
+	private final LogEventType type;
+	private final long timestamp;
+	private final String first;
+	private final String second;
+
+	LogEvent(LogEventType type, long timestamp, String first, String second) {
+		this.type = type;
+		this.timestamp = timestamp;
+		this.first = first;
+		this.second = second;
+	}
+
+	public static LogEvent apiRequest(String endpoint, String user) {
+		return new LogEvent(LogEventType.API_REQUEST, System.currentTimeMillis(), endpoint, user);
+	}
+
+	public static LogEvent dbTransaction(String action, String subject) {
+		return new LogEvent(LogEventType.DB_TRANSACTION, System.currentTimeMillis(), action, subject);
+	}
+
+	public static LogEvent importStep(String action, String detail) {
+		return new LogEvent(LogEventType.IMPORT, System.currentTimeMillis(), action, detail);
+	}
+
+	public static LogEvent error(String operation, String message) {
+		return new LogEvent(LogEventType.ERROR, System.currentTimeMillis(), operation, message);
+	}
+
+	public static LogEvent message(String message) {
+		return new LogEvent(LogEventType.MESSAGE, System.currentTimeMillis(), message, null);
+	}
+
+	public LogEventType getType() {
+		return type;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public String getFirst() {
+		return first;
+	}
+
+	public String getSecond() {
+		return second;
+	}
+}
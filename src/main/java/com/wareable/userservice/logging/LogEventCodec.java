@@ -0,0 +1,207 @@
+package com.wareable.userservice.logging;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Encodings of a {@link LogEvent}.
+ * <p>
+ * The binary spool record is an 8-byte timestamp, a 1-byte type and two
+ * fields, each a 4-byte UTF-8 length ({@code -1} for null) followed by the
+ * bytes. Encoding writes straight into the target buffer, so the request path
+ * allocates nothing beyond the event itself.
+ * <p>
+ * The S3 line format is one JSON object per line, rendered by the flusher:
+ * <pre>{"ts":"2025-03-13T10:15:30.123Z","type":"API_REQUEST","endpoint":"/signin","user":"bob"}</pre>
+ */
+final class LogEventCodec {
+
+	static final String JSON_TS_PREFIX = "{\"ts\":\"";
+	static final String JSON_TYPE_PREFIX = "\",\"type\":\"";
+
+	private static final int NULL_LENGTH = -1;
+
+	private LogEventCodec() {
+	}
+
+	static int encodedLength(LogEvent event) {
+		return Long.BYTES + 1 + fieldLength(event.getFirst()) + fieldLength(event.getSecond());
+	}
+
+	static void encode(LogEvent event, ByteBuffer target, int offset) {
+		target.putLong(offset, event.getTimestamp());
+		target.put(offset + Long.BYTES, (byte) event.getType().ordinal());
+		int next = putField(event.getFirst(), target, offset + Long.BYTES + 1);
+		putField(event.getSecond(), target, next);
+	}
+
+	static LogEvent decode(ByteBuffer source, int offset) {
+		long timestamp = source.getLong(offset);
+		LogEventType type = LogEventType.of(source.get(offset + Long.BYTES));
+		int firstOffset = offset + Long.BYTES + 1;
+		String first = getField(source, firstOffset);
+		String second = getField(source, firstOffset + Integer.BYTES + Math.max(0, source.getInt(firstOffset)));
+		return new LogEvent(type, timestamp, first, second);
+	}
+
+	/**
+	 * Whether the {@code length} bytes at {@code offset} hold exactly one
+	 * well-formed record. Used to find committed records past a torn one.
+	 */
+	static boolean isValid(ByteBuffer source, int offset, int length) {
+		int end = offset + length;
+		int field = offset + Long.BYTES + 1;
+		if (offset < 0 || length < Long.BYTES + 1 + 2 * Integer.BYTES || end > source.capacity()) {
+			return false;
+		}
+		int type = source.get(offset + Long.BYTES);
+		if (type < 0 || type >= LogEventType.count()) {
+			return false;
+		}
+		for (int i = 0; i < 2; i++) {
+			if (field > end - Integer.BYTES) {
+				return false;
+			}
+			int fieldLength = source.getInt(field);
+			field += Integer.BYTES;
+			if (fieldLength < NULL_LENGTH || fieldLength > end - field) {
+				return false;
+			}
+			field += Math.max(0, fieldLength);
+		}
+		return field == end;
+	}
+
+	/** Writes the event as one JSON line and returns its length in UTF-8 bytes. */
+	static int writeJsonLine(LogEvent event, Writer out) throws IOException {
+		String timestamp = Instant.ofEpochMilli(event.getTimestamp()).toString();
+		String type = event.getType().name();
+		out.write(JSON_TS_PREFIX);
+		out.write(timestamp);
+		out.write(JSON_TYPE_PREFIX);
+		out.write(type);
+		out.write('"');
+		int written = JSON_TS_PREFIX.length() + timestamp.length() + JSON_TYPE_PREFIX.length() + type.length() + 1;
+		written += writeJsonField(event.getType().getFirstField(), event.getFirst(), out);
+		written += writeJsonField(event.getType().getSecondField(), event.getSecond(), out);
+		out.write("}\n");
+		return written + 2;
+	}
+
+	private static int writeJsonField(String name, String value, Writer out) throws IOException {
+		if (name == null || value == null) {
+			return 0;
+		}
+		out.write(",\"");
+		out.write(name);
+		out.write("\":\"");
+		// escapes add to the UTF-8 length of the value; the rest of the line is ASCII
+		int written = name.length() + 6 + utf8Length(value);
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				out.write("\\\"");
+				written++;
+				break;
+			case '\\':
+				out.write("\\\\");
+				written++;
+				break;
+			case '\n':
+				out.write("\\n");
+				written++;
+				break;
+			case '\r':
+				out.write("\\r");
+				written++;
+				break;
+			case '\t':
+				out.write("\\t");
+				written++;
+				break;
+			default:
+				if (c < 0x20) {
+					out.write(String.format("\\u%04x", (int) c));
+					written += 5;
+				} else {
+					out.write(c);
+				}
+			}
+		}
+		out.write('"');
+		return written;
+	}
+
+	private static int fieldLength(String value) {
+		return Integer.BYTES + (value == null ? 0 : utf8Length(value));
+	}
+
+	private static int putField(String value, ByteBuffer target, int offset) {
+		if (value == null) {
+			target.putInt(offset, NULL_LENGTH);
+			return offset + Integer.BYTES;
+		}
+		int end = putUtf8(value, target, offset + Integer.BYTES);
+		target.putInt(offset, end - offset - Integer.BYTES);
+		return end;
+	}
+
+	private static String getField(ByteBuffer source, int offset) {
+		int length = source.getInt(offset);
+		if (length == NULL_LENGTH) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		source.get(offset + Integer.BYTES, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static int utf8Length(String value) {
+		int length = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	/** Writes {@code value} as UTF-8 and returns the offset just after it. */
+	static int putUtf8(String value, ByteBuffer target, int offset) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				target.put(offset++, (byte) c);
+			} else if (c < 0x800) {
+				target.put(offset++, (byte) (0xC0 | (c >> 6)));
+				target.put(offset++, (byte) (0x80 | (c & 0x3F)));
+			} else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				target.put(offset++, (byte) (0xF0 | (codePoint >> 18)));
+				target.put(offset++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+				target.put(offset++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+				target.put(offset++, (byte) (0x80 | (codePoint & 0x3F)));
+			} else {
+				// lone surrogates are encoded as-is (3 bytes), matching utf8Length
+				target.put(offset++, (byte) (0xE0 | (c >> 12)));
+				target.put(offset++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+				target.put(offset++, (byte) (0x80 | (c & 0x3F)));
+			}
+		}
+		return offset;
+	}
+}
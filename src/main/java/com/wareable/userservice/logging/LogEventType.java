@@ -0,0 +1,39 @@
+package com.wareable.userservice.logging;
+
+/**
+ * Kinds of {@link LogEvent}, with the names of their (at most two) fields as
+ * they appear in the JSON line written to S3.
+ */
+public enum LogEventType {
+	API_REQUEST("endpoint", "user"),
+	DB_TRANSACTION("action", "subject"),
+	IMPORT("action", "detail"),
+	ERROR("operation", "message"),
+	MESSAGE("message", null);
+
+	private static final LogEventType[] VALUES = values();
+
+	private final String firstField;
+	private final String secondField;
+
+	LogEventType(String firstField, String secondField) {
+		this.firstField = firstField;
+		this.secondField = secondField;
+	}
+
+	public String getFirstField() {
+		return firstField;
+	}
+
+	public String getSecondField() {
+		return secondField;
+	}
+
+	static int count() {
+		return VALUES.length;
+	}
+
+	static LogEventType of(int ordinal) {
+		return VALUES[ordinal];
+	}
+}
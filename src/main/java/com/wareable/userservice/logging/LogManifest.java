@@ -0,0 +1,105 @@
+package com.wareable.userservice.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index written next to a compacted day. The compacted object is the plain
+ * concatenation of the day's gzip segments, so each entry's offset and length
+ * address one self-contained gzip member that can be fetched with a ranged GET.
+ */
+public class LogManifest {
+	private String date;
+	private String object;
+	private List<Segment> segments = new ArrayList<>();
+
+	public String getDate() {
+		return date;
+	}
+
+	public void setDate(String date) {
+		this.date = date;
+	}
+
+	public String getObject() {
+		return object;
+	}
+
+	public void setObject(String object) {
+		this.object = object;
+	}
+
+	public List<Segment> getSegments() {
+		return segments;
+	}
+
+	public void setSegments(List<Segment> segments) {
+		this.segments = segments;
+	}
+
+	public static class Segment {
+		private String key;
+		private String node;
+		private long offset;
+		private long length;
+		private int lines;
+		private long firstTimestamp;
+		private long lastTimestamp;
+
+		public String getKey() {
+			return key;
+		}
+
+		public void setKey(String key) {
+			this.key = key;
+		}
+
+		public String getNode() {
+			return node;
+		}
+
+		public void setNode(String node) {
+			this.node = node;
+		}
+
+		public long getOffset() {
+			return offset;
+		}
+
+		public void setOffset(long offset) {
+			this.offset = offset;
+		}
+
+		public long getLength() {
+			return length;
+		}
+
+		public void setLength(long length) {
+			this.length = length;
+		}
+
+		public int getLines() {
+			return lines;
+		}
+
+		public void setLines(int lines) {
+			this.lines = lines;
+		}
+
+		public long getFirstTimestamp() {
+			return firstTimestamp;
+		}
+
+		public void setFirstTimestamp(long firstTimestamp) {
+			this.firstTimestamp = firstTimestamp;
+		}
+
+		public long getLastTimestamp() {
+			return lastTimestamp;
+		}
+
+		public void setLastTimestamp(long lastTimestamp) {
+			this.lastTimestamp = lastTimestamp;
+		}
+	}
+}
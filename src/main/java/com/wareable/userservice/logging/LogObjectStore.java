@@ -0,0 +1,270 @@
+package com.wareable.userservice.logging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Owns the S3 layout of the log archive:
+ *
+ * <pre>
+ * logs/&lt;date&gt;/&lt;node&gt;/&lt;seq&gt;.log.gz   immutable segments written by each node
+ * logs/&lt;date&gt;/compacted.log.gz       all segments of a finished day, concatenated
+ * logs/&lt;date&gt;/manifest.json          offsets of each segment inside the compacted object
+ * </pre>
+ */
+@Component
+class LogObjectStore {
+
+	static final String ROOT = "logs/";
+	static final String LEGACY_PREFIX = "app-log-";
+	static final String LEGACY_SUFFIX = ".log";
+	static final String SEGMENT_SUFFIX = ".log.gz";
+	static final String COMPACTED_NAME = "compacted.log.gz";
+	static final String MANIFEST_NAME = "manifest.json";
+
+	static final String META_FIRST_TS = "first-ts";
+	static final String META_LAST_TS = "last-ts";
+	static final String META_LINES = "lines";
+
+	private final S3Client s3Client;
+
+	private final ObjectMapper objectMapper;
+
+	private final String bucketName;
+
+	private final String nodeId;
+
+	LogObjectStore(S3Client s3Client, ObjectMapper objectMapper, @Value("${aws.s3.bucket-name}") String bucketName,
+			@Value("${userservice.log.node-id:}") String nodeId) {
+		this.s3Client = s3Client;
+		this.objectMapper = objectMapper;
+		this.bucketName = bucketName;
+		this.nodeId = sanitize(nodeId.isBlank() ? defaultNodeId() : nodeId);
+	}
+
+	@PostConstruct
+	void init() {
+		try {
+			CreateBucketRequest createBucketRequest = CreateBucketRequest.builder().bucket(bucketName).build();
+			s3Client.createBucket(createBucketRequest);
+		} catch (S3Exception e) {
+			System.out.println("Bucket might already exist: " + e.awsErrorDetails().errorMessage());
+		} catch (SdkException e) {
+			System.out.println("Could not connect to S3: " + e.getMessage());
+		}
+	}
+
+	String getNodeId() {
+		return nodeId;
+	}
+
+	String segmentKey(LocalDate date, long sequence) {
+		return dayPrefix(date) + nodeId + "/" + String.format("%08d", sequence) + SEGMENT_SUFFIX;
+	}
+
+	String compactedKey(LocalDate date) {
+		return dayPrefix(date) + COMPACTED_NAME;
+	}
+
+	String manifestKey(LocalDate date) {
+		return dayPrefix(date) + MANIFEST_NAME;
+	}
+
+	/**
+	 * Returns the first unused segment sequence of this node for the given day,
+	 * so a restarted node never overwrites its own earlier segments. Segments
+	 * already compacted and deleted still count through the day's manifest;
+	 * reusing one of their keys would make the new segment look compacted.
+	 */
+	long nextSequence(LocalDate date) {
+		String prefix = dayPrefix(date) + nodeId + "/";
+		long max = 0;
+		for (S3Object object : s3Client
+				.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucketName).prefix(prefix).build())
+				.contents()) {
+			max = Math.max(max, sequenceOf(object.key(), prefix));
+		}
+		Optional<LogManifest> manifest = readManifest(date);
+		if (manifest.isPresent()) {
+			for (LogManifest.Segment segment : manifest.get().getSegments()) {
+				if (segment.getKey().startsWith(prefix)) {
+					max = Math.max(max, sequenceOf(segment.getKey(), prefix));
+				}
+			}
+		}
+		return max + 1;
+	}
+
+	private static long sequenceOf(String key, String prefix) {
+		String name = key.substring(prefix.length());
+		if (name.endsWith(SEGMENT_SUFFIX)) {
+			try {
+				return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+			} catch (NumberFormatException e) {
+				// not one of ours
+			}
+		}
+		return 0;
+	}
+
+	void putSegment(LogSegment segment, long sequence) {
+		Map<String, String> metadata = new HashMap<>();
+		metadata.put(META_FIRST_TS, Long.toString(segment.getFirstTimestamp()));
+		metadata.put(META_LAST_TS, Long.toString(segment.getLastTimestamp()));
+		metadata.put(META_LINES, Integer.toString(segment.getLines()));
+
+		PutObjectRequest putRequest = PutObjectRequest.builder().bucket(bucketName)
+				.key(segmentKey(segment.getDate(), sequence)).contentType("application/gzip").metadata(metadata)
+				.build();
+		s3Client.putObject(putRequest, RequestBody.fromBytes(segment.finish()));
+	}
+
+	/** Days that have a folder under {@code logs/}, oldest first. */
+	List<LocalDate> listDates() {
+		List<LocalDate> dates = new ArrayList<>();
+		for (CommonPrefix prefix : s3Client.listObjectsV2Paginator(
+				ListObjectsV2Request.builder().bucket(bucketName).prefix(ROOT).delimiter("/").build())
+				.commonPrefixes()) {
+			String day = prefix.prefix().substring(ROOT.length(), prefix.prefix().length() - 1);
+			try {
+				dates.add(LocalDate.parse(day));
+			} catch (DateTimeParseException e) {
+				// legacy or foreign folder
+			}
+		}
+		dates.sort(null);
+		return dates;
+	}
+
+	/** All per-node segments still stored for a day, in node and sequence order. */
+	List<S3Object> listSegments(LocalDate date) {
+		String prefix = dayPrefix(date);
+		List<S3Object> segments = new ArrayList<>();
+		for (S3Object object : s3Client
+				.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucketName).prefix(prefix).build())
+				.contents()) {
+			String name = object.key().substring(prefix.length());
+			if (name.indexOf('/') > 0 && name.endsWith(SEGMENT_SUFFIX)) {
+				segments.add(object);
+			}
+		}
+		segments.sort((a, b) -> a.key().compareTo(b.key()));
+		return segments;
+	}
+
+	Optional<LogManifest> readManifest(LocalDate date) {
+		try {
+			byte[] json = s3Client.getObjectAsBytes(
+					GetObjectRequest.builder().bucket(bucketName).key(manifestKey(date)).build()).asByteArray();
+			return Optional.of(objectMapper.readValue(json, LogManifest.class));
+		} catch (NoSuchKeyException e) {
+			return Optional.empty();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	void putManifest(LocalDate date, LogManifest manifest) {
+		try {
+			s3Client.putObject(PutObjectRequest.builder().bucket(bucketName).key(manifestKey(date))
+					.contentType("application/json").build(),
+					RequestBody.fromBytes(objectMapper.writeValueAsBytes(manifest)));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	void putCompacted(LocalDate date, Path file) {
+		s3Client.putObject(PutObjectRequest.builder().bucket(bucketName).key(compactedKey(date))
+				.contentType("application/gzip").build(), RequestBody.fromFile(file));
+	}
+
+	/** The single plain-text object a day was appended to before per-node segments, if any. */
+	Optional<ResponseInputStream<GetObjectResponse>> openLegacy(LocalDate date) {
+		try {
+			return Optional.of(open(ROOT + LEGACY_PREFIX + date + LEGACY_SUFFIX));
+		} catch (NoSuchKeyException e) {
+			return Optional.empty();
+		}
+	}
+
+	/** User metadata of an object, or empty if it does not exist (any more). */
+	Optional<Map<String, String>> headMetadata(String key) {
+		try {
+			return Optional.of(
+					s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build()).metadata());
+		} catch (NoSuchKeyException e) {
+			return Optional.empty();
+		}
+	}
+
+	ResponseInputStream<GetObjectResponse> open(String key) {
+		return s3Client.getObject(GetObjectRequest.builder().bucket(bucketName).key(key).build());
+	}
+
+	/** Opens {@code length} bytes starting at {@code offset} of an object. */
+	ResponseInputStream<GetObjectResponse> openRange(String key, long offset, long length) {
+		return s3Client.getObject(GetObjectRequest.builder().bucket(bucketName).key(key)
+				.range("bytes=" + offset + "-" + (offset + length - 1)).build());
+	}
+
+	void delete(List<String> keys) {
+		for (int from = 0; from < keys.size(); from += 1000) {
+			List<ObjectIdentifier> batch = keys.subList(from, Math.min(keys.size(), from + 1000)).stream()
+					.map(key -> ObjectIdentifier.builder().key(key).build()).toList();
+			s3Client.deleteObjects(DeleteObjectsRequest.builder().bucket(bucketName)
+					.delete(Delete.builder().objects(batch).quiet(true).build()).build());
+		}
+	}
+
+	private static String dayPrefix(LocalDate date) {
+		return ROOT + date + "/";
+	}
+
+	private static String defaultNodeId() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			return "node-" + UUID.randomUUID().toString().substring(0, 8);
+		}
+	}
+
+	static String sanitize(String value) {
+		return value.replaceAll("[^A-Za-z0-9._-]", "_");
+	}
+}
@@ -0,0 +1,37 @@
+package com.wareable.userservice.logging;
+
+public class LogPipelineStats {
+	private final long queued;
+	private final long dropped;
+	private final long flushed;
+	private final long failedFlushes;
+	private final int pending;
+
+	public LogPipelineStats(long queued, long dropped, long flushed, long failedFlushes, int pending) {
+		this.queued = queued;
+		this.dropped = dropped;
+		this.flushed = flushed;
+		this.failedFlushes = failedFlushes;
+		this.pending = pending;
+	}
+
+	public long getQueued() {
+		return queued;
+	}
+
+	public long getDropped() {
+		return dropped;
+	}
+
+	public long getFlushed() {
+		return flushed;
+	}
+
+	public long getFailedFlushes() {
+		return failedFlushes;
+	}
+
+	public int getPending() {
+		return pending;
+	}
+}
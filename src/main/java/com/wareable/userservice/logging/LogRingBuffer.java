@@ -0,0 +1,99 @@
+package com.wareable.userservice.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer (Vyukov style) used to hand log events from
+ * request threads to the background flusher. Producers never block: when the
+ * ring is full {@link #offer(LogEvent)} simply returns {@code false}.
+ * <p>
+ * Events only live in memory, so this buffer is the fallback when the
+ * {@link MappedLogSpool} is disabled or cannot be opened.
+ */
+final class LogRingBuffer implements LogBuffer {
+
+	private final int mask;
+	private final AtomicReferenceArray<LogEvent> elements;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong head = new AtomicLong();
+
+	LogRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.mask = size - 1;
+		this.elements = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	@Override
+	public boolean offer(LogEvent element) {
+		long pos = tail.get();
+		for (;;) {
+			int index = (int) pos & mask;
+			long diff = sequences.get(index) - pos;
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					elements.set(index, element);
+					sequences.set(index, pos + 1);
+					return true;
+				}
+				pos = tail.get();
+			} else if (diff < 0) {
+				return false;
+			} else {
+				pos = tail.get();
+			}
+		}
+	}
+
+	@Override
+	public LogEvent poll() {
+		long pos = head.get();
+		for (;;) {
+			int index = (int) pos & mask;
+			long diff = sequences.get(index) - (pos + 1);
+			if (diff == 0) {
+				if (head.compareAndSet(pos, pos + 1)) {
+					LogEvent element = elements.get(index);
+					elements.set(index, null);
+					sequences.set(index, pos + mask + 1);
+					return element;
+				}
+				pos = head.get();
+			} else if (diff < 0) {
+				return null;
+			} else {
+				pos = head.get();
+			}
+		}
+	}
+
+	@Override
+	public boolean discardOldest() {
+		return poll() != null;
+	}
+
+	@Override
+	public long position() {
+		return 0;
+	}
+
+	@Override
+	public void acknowledge(long position) {
+		// nothing is persisted, so there is nothing to release
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.max(0, tail.get() - head.get());
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,103 @@
+package com.wareable.userservice.logging;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Filter applied to each stored log line by {@link LogSearchService}.
+ */
+public class LogSearchCriteria {
+
+	/** Regular expressions only see this many leading characters of a line, to bound backtracking. */
+	public static final int MAX_PATTERN_INPUT = 4096;
+
+	private final Instant from;
+	private final Instant to;
+	private final String eventType;
+	private final String text;
+	private final Pattern pattern;
+	private final int limit;
+
+	/**
+	 * @param eventType {@link LogEventType} name or label such as {@code API REQUEST},
+	 *                  {@code DB_TRANSACTION} or {@code ERROR}; {@code null} matches any type
+	 * @param text      substring to look for, or {@code null}
+	 * @param pattern   regular expression to look for, or {@code null}
+	 */
+	public LogSearchCriteria(Instant from, Instant to, String eventType, String text, Pattern pattern, int limit) {
+		this.from = from;
+		this.to = to;
+		this.eventType = eventType == null || eventType.isBlank() ? null
+				: eventType.trim().replace(' ', '_').toUpperCase(Locale.ROOT);
+		this.text = text == null || text.isEmpty() ? null : text;
+		this.pattern = pattern;
+		this.limit = limit;
+	}
+
+	public Instant getFrom() {
+		return from;
+	}
+
+	public Instant getTo() {
+		return to;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	boolean overlaps(long firstTimestamp, long lastTimestamp) {
+		return lastTimestamp >= from.toEpochMilli() && firstTimestamp <= to.toEpochMilli();
+	}
+
+	boolean matches(String line) {
+		Instant timestamp;
+		boolean typeMatches;
+		try {
+			if (line.startsWith(LogEventCodec.JSON_TS_PREFIX)) {
+				// {"ts":"<instant>","type":"<TYPE>",...}
+				int tsEnd = line.indexOf('"', LogEventCodec.JSON_TS_PREFIX.length());
+				timestamp = Instant.parse(line.substring(LogEventCodec.JSON_TS_PREFIX.length(), tsEnd));
+				int typeStart = tsEnd + LogEventCodec.JSON_TYPE_PREFIX.length();
+				typeMatches = eventType == null || line.startsWith(eventType + '"', typeStart);
+			} else {
+				// plain "<instant> <TYPE LABEL>: ..." lines written before typed events
+				int space = line.indexOf(' ');
+				timestamp = Instant.parse(line.substring(0, Math.max(0, space)));
+				typeMatches = eventType == null
+						|| line.regionMatches(true, space + 1, eventType.replace('_', ' '), 0, eventType.length());
+			}
+		} catch (DateTimeParseException | IndexOutOfBoundsException e) {
+			return false;
+		}
+		if (!typeMatches || timestamp.isBefore(from) || timestamp.isAfter(to)) {
+			return false;
+		}
+		return matchesContent(line);
+	}
+
+	/**
+	 * Lines of the legacy {@code logs/app-log-<date>.log} objects carry no
+	 * timestamp ("API REQUEST: /signin by bob"), so only the type label and the
+	 * content are checked; the caller has already matched the day.
+	 */
+	boolean matchesUntimed(String line) {
+		if (eventType != null && !line.regionMatches(true, 0, eventType.replace('_', ' '), 0, eventType.length())) {
+			return false;
+		}
+		return matchesContent(line);
+	}
+
+	private boolean matchesContent(String line) {
+		if (text != null && !line.contains(text)) {
+			return false;
+		}
+		if (pattern == null) {
+			return true;
+		}
+		return pattern.matcher(line.length() > MAX_PATTERN_INPUT ? line.substring(0, MAX_PATTERN_INPUT) : line)
+				.find();
+	}
+}
@@ -0,0 +1,155 @@
+package com.wareable.userservice.logging;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.stereotype.Service;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Searches the S3 log archive without downloading whole days.
+ * <p>
+ * Compacted days are read through their {@link LogManifest}: only segments
+ * whose time range overlaps the query are fetched, each with a ranged GET of
+ * exactly its gzip member. Days that are not compacted yet are read segment by
+ * segment, skipping any whose {@code first-ts}/{@code last-ts} metadata (read
+ * with a HEAD) is out of range. A segment compacted and deleted after it was
+ * listed is read through the day's re-read manifest instead. Lines are
+ * decompressed and matched one at a time and written straight to the caller,
+ * so memory use does not depend on the size of a day.
+ * <p>
+ * Days with neither a manifest nor segments fall back to the legacy
+ * uncompressed {@code logs/app-log-<date>.log} object. Its lines carry no
+ * timestamp, so every line of such a day counts as inside the range.
+ */
+@Service
+public class LogSearchService {
+
+	private final LogObjectStore store;
+
+	public LogSearchService(LogObjectStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Writes every matching line to {@code out}, oldest day first, and returns
+	 * the number of lines written.
+	 */
+	public int search(LogSearchCriteria criteria, Writer out) throws IOException {
+		LocalDate first = criteria.getFrom().atZone(ZoneId.systemDefault()).toLocalDate();
+		LocalDate last = criteria.getTo().atZone(ZoneId.systemDefault()).toLocalDate();
+
+		int written = 0;
+		for (LocalDate date = first; !date.isAfter(last) && written < criteria.getLimit(); date = date.plusDays(1)) {
+			Set<String> compacted = new HashSet<>();
+
+			Optional<LogManifest> manifest = store.readManifest(date);
+			if (manifest.isPresent()) {
+				for (LogManifest.Segment segment : manifest.get().getSegments()) {
+					compacted.add(segment.getKey());
+					if (written < criteria.getLimit()) {
+						written += scanCompacted(manifest.get(), segment, criteria, out, written);
+					}
+				}
+			}
+
+			List<S3Object> segments = store.listSegments(date);
+			if (manifest.isEmpty() && segments.isEmpty()) {
+				Optional<ResponseInputStream<GetObjectResponse>> legacy = store.openLegacy(date);
+				if (legacy.isPresent()) {
+					written += scan(legacy.get(), legacy.get(), criteria::matchesUntimed, criteria, out, written);
+				}
+				continue;
+			}
+
+			for (S3Object object : segments) {
+				if (written >= criteria.getLimit()) {
+					break;
+				}
+				if (compacted.contains(object.key())) {
+					continue;
+				}
+				Optional<Map<String, String>> metadata = store.headMetadata(object.key());
+				if (metadata.isPresent()) {
+					if (!overlaps(criteria, metadata.get())) {
+						continue;
+					}
+					try {
+						ResponseInputStream<GetObjectResponse> in = store.open(object.key());
+						written += scan(in, new GZIPInputStream(in), criteria::matches, criteria, out, written);
+						continue;
+					} catch (NoSuchKeyException e) {
+						// deleted between the HEAD and the GET
+					}
+				}
+				// compacted and deleted since it was listed; the manifest is written before the delete
+				Optional<LogManifest.Segment> moved = manifest.flatMap(m -> find(m, object.key()));
+				if (moved.isEmpty()) {
+					manifest = store.readManifest(date);
+					moved = manifest.flatMap(m -> find(m, object.key()));
+				}
+				if (moved.isPresent()) {
+					written += scanCompacted(manifest.get(), moved.get(), criteria, out, written);
+				}
+			}
+		}
+		out.flush();
+		return written;
+	}
+
+	private int scanCompacted(LogManifest manifest, LogManifest.Segment segment, LogSearchCriteria criteria,
+			Writer out, int alreadyWritten) throws IOException {
+		if (!criteria.overlaps(segment.getFirstTimestamp(), segment.getLastTimestamp())) {
+			return 0;
+		}
+		ResponseInputStream<GetObjectResponse> in = store.openRange(manifest.getObject(), segment.getOffset(),
+				segment.getLength());
+		return scan(in, new GZIPInputStream(in), criteria::matches, criteria, out, alreadyWritten);
+	}
+
+	private static boolean overlaps(LogSearchCriteria criteria, Map<String, String> metadata) {
+		return criteria.overlaps(Long.parseLong(metadata.getOrDefault(LogObjectStore.META_FIRST_TS, "0")),
+				Long.parseLong(metadata.getOrDefault(LogObjectStore.META_LAST_TS, "" + Long.MAX_VALUE)));
+	}
+
+	private static Optional<LogManifest.Segment> find(LogManifest manifest, String key) {
+		return manifest.getSegments().stream().filter(segment -> segment.getKey().equals(key)).findFirst();
+	}
+
+	private static int scan(ResponseInputStream<GetObjectResponse> in, InputStream lines, Predicate<String> filter,
+			LogSearchCriteria criteria, Writer out, int alreadyWritten) throws IOException {
+		int written = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(lines, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (filter.test(line)) {
+					out.write(line);
+					out.write('\n');
+					if (alreadyWritten + ++written >= criteria.getLimit()) {
+						// stop downloading the rest of the segment
+						in.abort();
+						break;
+					}
+				}
+			}
+		}
+		return written;
+	}
+}
@@ -0,0 +1,106 @@
+package com.wareable.userservice.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-memory, gzip-compressed run of JSON log lines for one day. Segments are
+ * filled by the flusher and uploaded as a single immutable S3 object once
+ * they are large or old enough.
+ */
+final class LogSegment {
+
+	private final LocalDate date;
+	private final long openedAt;
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	private final Writer writer;
+	private long firstTimestamp;
+	private long lastTimestamp;
+	private int lines;
+	// UTF-8 bytes of the uncompressed lines, compared against the roll size
+	private long rawBytes;
+	private long bufferPosition;
+	private byte[] finished;
+
+	LogSegment(LocalDate date, long openedAt) {
+		this.date = date;
+		this.openedAt = openedAt;
+		try {
+			this.writer = new OutputStreamWriter(new GZIPOutputStream(bytes, 8192), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Renders an event as a JSON line; {@code bufferPosition} is the
+	 * {@link LogBuffer} read position just after it, acknowledged once this
+	 * segment is uploaded.
+	 */
+	void append(LogEvent event, long bufferPosition) {
+		try {
+			rawBytes += LogEventCodec.writeJsonLine(event, writer);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (lines++ == 0) {
+			firstTimestamp = event.getTimestamp();
+		}
+		lastTimestamp = event.getTimestamp();
+		this.bufferPosition = bufferPosition;
+	}
+
+	boolean shouldRoll(long now, long maxRawBytes, long maxAgeMillis) {
+		return rawBytes >= maxRawBytes || now - openedAt >= maxAgeMillis;
+	}
+
+	/**
+	 * Closes the gzip stream and returns the compressed object. Further
+	 * appends are not allowed once a segment is finished.
+	 */
+	byte[] finish() {
+		if (finished == null) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			finished = bytes.toByteArray();
+		}
+		return finished;
+	}
+
+	boolean isFinished() {
+		return finished != null;
+	}
+
+	boolean isEmpty() {
+		return lines == 0;
+	}
+
+	LocalDate getDate() {
+		return date;
+	}
+
+	long getFirstTimestamp() {
+		return firstTimestamp;
+	}
+
+	long getLastTimestamp() {
+		return lastTimestamp;
+	}
+
+	int getLines() {
+		return lines;
+	}
+
+	long getBufferPosition() {
+		return bufferPosition;
+	}
+}
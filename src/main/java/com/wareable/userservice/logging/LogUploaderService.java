@@ -1,79 +1,221 @@
 package com.wareable.userservice.logging;
 
-import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.core.exception.SdkClientException;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.model.S3Exception;
-
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ships application log lines to S3.
+ * <p>
+ * {@link #log(LogEvent)} never touches the network: it only appends the
+ * event to a local memory-mapped {@link MappedLogSpool} (or, if the spool is
+ * disabled, a bounded in-memory ring). A single background flusher drains the
+ * buffer every {@code userservice.log.flush-interval-ms}, or as soon as
+ * {@code userservice.log.flush-size} events are waiting, into a gzip
+ * {@link LogSegment}; events are only rendered as JSON lines there. Segments
+ * are rolled by size or age and uploaded as immutable per-node objects, so
+ * replicas never rewrite each other's data and each upload costs O(segment)
+ * rather than O(day). Spooled events are only
+ * released once their segment is in S3, so an outage or restart delays
+ * shipping instead of losing lines.
+ */
 @Service
 public class LogUploaderService {
 
-	private final S3Client s3Client;
+	private static final Logger logger = LoggerFactory.getLogger(LogUploaderService.class);
+
+	private static final int MAX_FINISHED_SEGMENTS = 16;
+
+	private final LogObjectStore store;
+
+	private final LogBuffer buffer;
+
+	private final int flushSize;
+
+	private final long flushIntervalNanos;
+
+	private final LogDropPolicy dropPolicy;
+
+	private final long segmentMaxBytes;
 
-	@Value("${aws.s3.bucket-name}")
-	private String bucketName;
+	private final long segmentMaxAgeMillis;
 
-	public LogUploaderService(@Value("${aws.accessKey}") String accessKey, @Value("${aws.secretKey}") String secretKey,
-			@Value("${aws.region}") String region) {
+	private final LongAdder queued = new LongAdder();
 
-		this.s3Client = S3Client.builder().region(Region.of(region))
-				.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
-				.endpointOverride(URI.create("http://localhost:4566")).forcePathStyle(true).build();
+	private final LongAdder dropped = new LongAdder();
+
+	private final LongAdder flushed = new LongAdder();
+
+	private final LongAdder failedFlushes = new LongAdder();
+
+	private final Map<LocalDate, Long> nextSequence = new HashMap<>();
+
+	private final Deque<LogSegment> finished = new ArrayDeque<>();
+
+	private LogSegment segment;
+
+	private volatile boolean running;
+
+	private Thread flusher;
+
+	public LogUploaderService(LogObjectStore store, @Value("${userservice.log.buffer-capacity:8192}") int bufferCapacity,
+			@Value("${userservice.log.flush-size:500}") int flushSize,
+			@Value("${userservice.log.flush-interval-ms:1000}") long flushIntervalMs,
+			@Value("${userservice.log.drop-policy:DROP_NEWEST}") LogDropPolicy dropPolicy,
+			@Value("${userservice.log.segment.max-bytes:1048576}") long segmentMaxBytes,
+			@Value("${userservice.log.segment.max-age-ms:60000}") long segmentMaxAgeMillis,
+			@Value("${userservice.log.spool.enabled:true}") boolean spoolEnabled,
+			@Value("${userservice.log.spool.directory:${java.io.tmpdir}/user-service/log-spool}") String spoolDirectory,
+			@Value("${userservice.log.spool.file-bytes:8388608}") int spoolFileBytes,
+			@Value("${userservice.log.spool.max-files:64}") int spoolMaxFiles) {
+		if (spoolEnabled && dropPolicy == LogDropPolicy.DROP_OLDEST) {
+			// the spool is append-only and only the flusher may move its read cursor
+			throw new IllegalStateException(
+					"userservice.log.drop-policy=DROP_OLDEST requires userservice.log.spool.enabled=false");
+		}
+		this.store = store;
+		this.buffer = createBuffer(spoolEnabled, spoolDirectory, spoolFileBytes, spoolMaxFiles, bufferCapacity);
+		this.flushSize = Math.max(1, flushSize);
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+		this.dropPolicy = dropPolicy;
+		this.segmentMaxBytes = segmentMaxBytes;
+		this.segmentMaxAgeMillis = segmentMaxAgeMillis;
 	}
 
 	@PostConstruct
 	public void init() {
-		try {
-			CreateBucketRequest createBucketRequest = CreateBucketRequest.builder().bucket(bucketName).build();
-			s3Client.createBucket(createBucketRequest);
-		} catch (S3Exception e) {
-			System.out.println("Bucket might already exist: " + e.awsErrorDetails().errorMessage());
+		running = true;
+		flusher = new Thread(this::runFlusher, "log-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		running = false;
+		if (flusher != null) {
+			LockSupport.unpark(flusher);
+			flusher.join(TimeUnit.SECONDS.toMillis(10));
 		}
+		buffer.close();
 	}
 
+	/**
+	 * Queues a free-text log line for upload. Prefer {@link #log(LogEvent)} with
+	 * a typed event on hot paths.
+	 */
 	public void appendLogToS3(String logContent) {
-		String today = LocalDate.now().format(DateTimeFormatter.ISO_DATE); // e.g., 2025-03-12
-		String logFileKey = "logs/app-log-" + today + ".log";
+		log(LogEvent.message(logContent));
+	}
 
-		StringBuilder updatedLog = new StringBuilder();
+	/**
+	 * Queues an event for upload. Never blocks; when the buffer is full the
+	 * configured {@link LogDropPolicy} decides which event is lost.
+	 */
+	public void log(LogEvent event) {
+		if (buffer.offer(event)) {
+			queued.increment();
+		} else if (dropPolicy == LogDropPolicy.DROP_OLDEST && buffer.discardOldest() && buffer.offer(event)) {
+			queued.increment();
+			dropped.increment();
+		} else {
+			dropped.increment();
+		}
 
-		try {
-			// Try to read existing file
-			GetObjectRequest getRequest = GetObjectRequest.builder().bucket(bucketName).key(logFileKey).build();
+		if (buffer.size() >= flushSize) {
+			LockSupport.unpark(flusher);
+		}
+	}
 
-			String existingLog = s3Client.getObjectAsBytes(getRequest).asUtf8String();
-			updatedLog.append(existingLog);
+	public LogPipelineStats getStats() {
+		return new LogPipelineStats(queued.sum(), dropped.sum(), flushed.sum(), failedFlushes.sum(), buffer.size());
+	}
 
-		} catch (NoSuchKeyException e) {
-			// File not found in S3 – first time writing
-			System.out.println("ℹ️ Log file does not exist yet. Creating new one.");
-		} catch (SdkClientException e) {
-			System.out.println("Could not connect to S3: " + e.getMessage());
-			return;
+	private static LogBuffer createBuffer(boolean spoolEnabled, String spoolDirectory, int spoolFileBytes,
+			int spoolMaxFiles, int bufferCapacity) {
+		if (spoolEnabled) {
+			try {
+				return new MappedLogSpool(Path.of(spoolDirectory), spoolFileBytes, spoolMaxFiles);
+			} catch (IOException | RuntimeException e) {
+				logger.warn("Could not open log spool in {}, falling back to an in-memory buffer: {}", spoolDirectory,
+						e.getMessage());
+			}
 		}
+		return new LogRingBuffer(bufferCapacity);
+	}
 
-		// Append new log
-		updatedLog.append(logContent).append(System.lineSeparator());
+	private void runFlusher() {
+		while (running) {
+			LockSupport.parkNanos(this, flushIntervalNanos);
+			flush(false);
+		}
+		flush(true);
+	}
+
+	private void flush(boolean closing) {
+		long now = System.currentTimeMillis();
+
+		LogEvent event;
+		while (finished.size() < MAX_FINISHED_SEGMENTS && (event = buffer.poll()) != null) {
+			LocalDate date = Instant.ofEpochMilli(event.getTimestamp()).atZone(ZoneId.systemDefault()).toLocalDate();
+			if (segment != null
+					&& (!segment.getDate().equals(date) || segment.shouldRoll(now, segmentMaxBytes, Long.MAX_VALUE))) {
+				roll();
+			}
+			if (segment == null) {
+				segment = new LogSegment(date, now);
+			}
+			segment.append(event, buffer.position());
+		}
+
+		if (segment != null && (closing || segment.shouldRoll(now, segmentMaxBytes, segmentMaxAgeMillis))) {
+			roll();
+		}
+		uploadFinished();
+	}
 
-		// Upload updated file
-		PutObjectRequest putRequest = PutObjectRequest.builder().bucket(bucketName).key(logFileKey).build();
+	private void roll() {
+		segment.finish();
+		finished.add(segment);
+		segment = null;
+	}
 
-		s3Client.putObject(putRequest, RequestBody.fromBytes(updatedLog.toString().getBytes(StandardCharsets.UTF_8)));
+	private void uploadFinished() {
+		while (!finished.isEmpty()) {
+			LogSegment next = finished.peek();
+			try {
+				long sequence = nextSequence.computeIfAbsent(next.getDate(), store::nextSequence);
+				store.putSegment(next, sequence);
+				nextSequence.put(next.getDate(), sequence + 1);
+			} catch (RuntimeException e) {
+				// Keep the segment and retry on the next tick; once too many
+				// segments are waiting the buffer fills up and starts dropping.
+				failedFlushes.increment();
+				logger.warn("Could not upload log segment with {} entries: {}", next.getLines(), e.getMessage());
+				return;
+			}
+
+			flushed.add(next.getLines());
+			finished.poll();
+			buffer.acknowledge(next.getBufferPosition());
+			nextSequence.keySet().removeIf(date -> date.isBefore(next.getDate()));
+		}
 	}
 }
@@ -0,0 +1,333 @@
+package com.wareable.userservice.logging;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-ahead spool for log events, backed by memory-mapped files.
+ * <p>
+ * The spool is a chain of fixed-size {@code spool-<n>.dat} files. Each record
+ * is a 4-byte length followed by a {@link LogEventCodec} payload, padded to a
+ * 4-byte boundary. Writers reserve space with a single atomic add, encode the
+ * payload in place and publish the record by storing its length last, so
+ * appends are lock-free and never touch the network. The flusher reads
+ * committed records in order and, once the corresponding segment is in S3,
+ * persists its read cursor to {@code spool.checkpoint}; after a restart or an
+ * S3 outage shipping resumes from that checkpoint.
+ * <p>
+ * A writer that dies between reserving and committing leaves a zeroed slot.
+ * Records are 4-byte aligned, so once a file is sealed the reader steps over
+ * such a hole word by word until the next well-formed record. The spool never
+ * discards queued records, so it cannot be combined with
+ * {@link LogDropPolicy#DROP_OLDEST}.
+ */
+final class MappedLogSpool implements LogBuffer {
+
+	private static final Logger logger = LoggerFactory.getLogger(MappedLogSpool.class);
+
+	private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+	private static final int HEADER = Integer.BYTES;
+	private static final String FILE_PREFIX = "spool-";
+	private static final String FILE_SUFFIX = ".dat";
+	private static final String CHECKPOINT = "spool.checkpoint";
+
+	private final Path directory;
+	private final int fileBytes;
+	private final int maxFiles;
+	private final ConcurrentSkipListMap<Long, SpoolFile> files = new ConcurrentSkipListMap<>();
+	private final FileChannel checkpointChannel;
+	private final MappedByteBuffer checkpoint;
+	private final LongAdder appended = new LongAdder();
+	private final AtomicLong consumed = new AtomicLong();
+
+	private volatile SpoolFile writeFile;
+
+	// read cursor, owned by the flusher thread
+	private SpoolFile readFile;
+	private int readOffset;
+
+	MappedLogSpool(Path directory, int fileBytes, int maxFiles) throws IOException {
+		this.directory = directory;
+		this.fileBytes = fileBytes & ~(HEADER - 1);
+		this.maxFiles = Math.max(2, maxFiles);
+
+		Files.createDirectories(directory);
+		this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, 2 * Long.BYTES);
+		long ackIndex = checkpoint.getLong(0);
+		long ackOffset = checkpoint.getLong(Long.BYTES);
+
+		try (DirectoryStream<Path> existing = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+			for (Path file : existing) {
+				String name = file.getFileName().toString();
+				long index = Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+				if (index < ackIndex) {
+					Files.deleteIfExists(file);
+				} else {
+					files.put(index, SpoolFile.reopen(file, index));
+				}
+			}
+		}
+
+		long next = files.isEmpty() ? Math.max(1, ackIndex + 1) : files.lastKey() + 1;
+		writeFile = SpoolFile.create(fileFor(next), next, this.fileBytes);
+		files.put(next, writeFile);
+
+		readFile = files.firstEntry().getValue();
+		readOffset = readFile.index == ackIndex ? (int) ackOffset : 0;
+		if (files.size() > 1) {
+			long recovered = countRecovered();
+			appended.add(recovered);
+			logger.info("Resuming log spool from {} at offset {} ({} files, {} records)", readFile.file, readOffset,
+					files.size(), recovered);
+		}
+	}
+
+	@Override
+	public boolean offer(LogEvent event) {
+		int length = LogEventCodec.encodedLength(event);
+		int recordSize = align(HEADER + length);
+		if (recordSize > fileBytes) {
+			return false;
+		}
+
+		for (;;) {
+			SpoolFile file = writeFile;
+			file.writers.incrementAndGet();
+			try {
+				long position = file.reserved.getAndAdd(recordSize);
+				if (position <= file.capacity - recordSize) {
+					int offset = (int) position;
+					LogEventCodec.encode(event, file.buffer, offset + HEADER);
+					INT.setRelease(file.buffer, offset, length);
+					appended.increment();
+					return true;
+				}
+			} finally {
+				file.writers.decrementAndGet();
+			}
+			if (!roll(file)) {
+				return false;
+			}
+		}
+	}
+
+	@Override
+	public boolean discardOldest() {
+		// records are append-only and the read cursor belongs to the flusher;
+		// LogUploaderService rejects DROP_OLDEST when the spool is enabled
+		return false;
+	}
+
+	@Override
+	public LogEvent poll() {
+		for (;;) {
+			SpoolFile file = readFile;
+			int length = file.lengthAt(readOffset);
+			if (length == 0 && file.isQuiescent()) {
+				// a writer may have committed between the two reads
+				length = file.lengthAt(readOffset);
+				if (length == 0) {
+					int committed = file.nextRecord(readOffset);
+					if (committed >= 0) {
+						logger.warn("Skipping {} bytes of an uncommitted record in {}", committed - readOffset, file.file);
+						readOffset = committed;
+						continue;
+					}
+					Map.Entry<Long, SpoolFile> next = files.higherEntry(file.index);
+					if (next == null) {
+						return null;
+					}
+					readFile = next.getValue();
+					readOffset = 0;
+					continue;
+				}
+			}
+			if (length == 0) {
+				return null;
+			}
+
+			LogEvent event = LogEventCodec.decode(file.buffer, readOffset + HEADER);
+			readOffset += align(HEADER + length);
+			consumed.incrementAndGet();
+			return event;
+		}
+	}
+
+	@Override
+	public long position() {
+		return (readFile.index << 32) | readOffset;
+	}
+
+	@Override
+	public void acknowledge(long position) {
+		long index = position >>> 32;
+		checkpoint.putLong(0, index);
+		checkpoint.putLong(Long.BYTES, position & 0xFFFFFFFFL);
+		checkpoint.force();
+
+		for (SpoolFile shipped : files.headMap(index).values()) {
+			files.remove(shipped.index);
+			shipped.delete();
+		}
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.max(0, appended.sum() - consumed.get());
+	}
+
+	@Override
+	public void close() {
+		checkpoint.force();
+		try {
+			checkpointChannel.close();
+		} catch (IOException e) {
+			logger.warn("Could not close log spool checkpoint: {}", e.getMessage());
+		}
+		for (SpoolFile file : files.values()) {
+			file.close();
+		}
+	}
+
+	private synchronized boolean roll(SpoolFile full) {
+		full.sealed = true;
+		if (writeFile != full) {
+			return true;
+		}
+		if (files.size() >= maxFiles) {
+			return false;
+		}
+		try {
+			SpoolFile next = SpoolFile.create(fileFor(full.index + 1), full.index + 1, fileBytes);
+			files.put(next.index, next);
+			writeFile = next;
+			return true;
+		} catch (IOException e) {
+			logger.warn("Could not roll log spool: {}", e.getMessage());
+			return false;
+		}
+	}
+
+	/** Committed records left unshipped by a previous run, so {@link #size()} includes them. */
+	private long countRecovered() {
+		long recovered = 0;
+		for (SpoolFile file : files.values()) {
+			if (file == writeFile) {
+				continue;
+			}
+			int offset = file == readFile ? readOffset : 0;
+			while ((offset = file.nextRecord(offset)) >= 0) {
+				recovered++;
+				offset += align(HEADER + file.lengthAt(offset));
+			}
+		}
+		return recovered;
+	}
+
+	private Path fileFor(long index) {
+		return directory.resolve(FILE_PREFIX + String.format("%010d", index) + FILE_SUFFIX);
+	}
+
+	private static int align(int size) {
+		return (size + HEADER - 1) & ~(HEADER - 1);
+	}
+
+	private static final class SpoolFile {
+		final long index;
+		final Path file;
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+		final int capacity;
+		final AtomicLong reserved;
+		final AtomicInteger writers = new AtomicInteger();
+		volatile boolean sealed;
+
+		private SpoolFile(long index, Path file, FileChannel channel, int capacity, long reserved, boolean sealed)
+				throws IOException {
+			this.index = index;
+			this.file = file;
+			this.channel = channel;
+			this.capacity = capacity;
+			this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+			this.reserved = new AtomicLong(reserved);
+			this.sealed = sealed;
+		}
+
+		static SpoolFile create(Path file, long index, int capacity) throws IOException {
+			FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			return new SpoolFile(index, file, channel, capacity, 0, false);
+		}
+
+		/** Files left by a previous run are read-only: nothing may be appended. */
+		static SpoolFile reopen(Path file, long index) throws IOException {
+			FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			int capacity = (int) Math.min(Integer.MAX_VALUE, channel.size()) & ~(HEADER - 1);
+			return new SpoolFile(index, file, channel, capacity, capacity, true);
+		}
+
+		/** Length of the committed record at {@code offset}, or 0 if there is none (yet). */
+		int lengthAt(int offset) {
+			if (offset > capacity - HEADER) {
+				return 0;
+			}
+			int length = (int) INT.getAcquire(buffer, offset);
+			return length > 0 && length <= capacity - offset - HEADER ? length : 0;
+		}
+
+		/**
+		 * Offset of the first well-formed committed record at or after
+		 * {@code offset}, or -1. Only meaningful once the file is quiescent.
+		 */
+		int nextRecord(int offset) {
+			for (int candidate = offset; candidate <= capacity - HEADER; candidate += HEADER) {
+				int length = lengthAt(candidate);
+				if (length > 0 && LogEventCodec.isValid(buffer, candidate + HEADER, length)) {
+					return candidate;
+				}
+			}
+			return -1;
+		}
+
+		boolean isQuiescent() {
+			return sealed && writers.get() == 0;
+		}
+
+		void close() {
+			try {
+				buffer.force();
+				channel.close();
+			} catch (IOException e) {
+				logger.warn("Could not close log spool file {}: {}", file, e.getMessage());
+			}
+		}
+
+		void delete() {
+			try {
+				channel.close();
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				logger.warn("Could not delete shipped log spool file {}: {}", file, e.getMessage());
+			}
+		}
+	}
+}
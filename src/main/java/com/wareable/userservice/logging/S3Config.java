@@ -0,0 +1,24 @@
+package com.wareable.userservice.logging;
+
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+@Configuration
+public class S3Config {
+
+	@Bean(destroyMethod = "close")
+	S3Client s3Client(@Value("${aws.accessKey}") String accessKey, @Value("${aws.secretKey}") String secretKey,
+			@Value("${aws.region}") String region) {
+		return S3Client.builder().region(Region.of(region))
+				.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+				.endpointOverride(URI.create("http://localhost:4566")).forcePathStyle(true).build();
+	}
+}
@@ -12,6 +12,11 @@ import jakarta.validation.constraints.Size;
 
 @Document(collection = "appuser")
 public class AppUser {
+	// unique indexes, created by UserIndexInitializer
+	public static final String USERNAME_INDEX = "username_unique";
+
+	public static final String EMAIL_INDEX = "email_unique";
+
 	@Id
 	private String id;
 
@@ -0,0 +1,86 @@
+package com.wareable.userservice.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A revoked token ({@code tokenId} set) or every token of a user issued
+ * before {@code revokedBefore} ({@code username} set). MongoDB removes the
+ * entry once {@code expiresAt} has passed, i.e. when the tokens it covers
+ * would have expired anyway.
+ */
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+	@Id
+	private String id;
+
+	private String tokenId;
+
+	private String username;
+
+	private Date revokedBefore;
+
+	@Indexed(expireAfterSeconds = 0)
+	private Date expiresAt;
+
+	public RevokedToken() {
+	}
+
+	public static RevokedToken ofToken(String tokenId, Date expiresAt) {
+		RevokedToken revoked = new RevokedToken();
+		revoked.tokenId = tokenId;
+		revoked.expiresAt = expiresAt;
+		return revoked;
+	}
+
+	public static RevokedToken ofUser(String username, Date revokedBefore, Date expiresAt) {
+		RevokedToken revoked = new RevokedToken();
+		revoked.username = username;
+		revoked.revokedBefore = revokedBefore;
+		revoked.expiresAt = expiresAt;
+		return revoked;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getTokenId() {
+		return tokenId;
+	}
+
+	public void setTokenId(String tokenId) {
+		this.tokenId = tokenId;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public Date getRevokedBefore() {
+		return revokedBefore;
+	}
+
+	public void setRevokedBefore(Date revokedBefore) {
+		this.revokedBefore = revokedBefore;
+	}
+
+	public Date getExpiresAt() {
+		return expiresAt;
+	}
+
+	public void setExpiresAt(Date expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+}
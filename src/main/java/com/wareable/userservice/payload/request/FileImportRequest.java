@@ -0,0 +1,58 @@
+package com.wareable.userservice.payload.request;
+
+public class FileImportRequest {
+	/** Relative to userservice.import.files.base-directory. */
+	private String path;
+
+	/** "json" (an array) or "ndjson"; detected from the file when absent. */
+	private String format;
+
+	/** "raw" (external_raw_data, the default) or "users". */
+	private String target;
+
+	/** Raw target: "append" or "delta"; defaults to userservice.import.delta.enabled. */
+	private String mode;
+
+	/** Delta mode: dotted path of the field identifying a document; content hash when absent. */
+	private String key;
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public String getFormat() {
+		return format;
+	}
+
+	public void setFormat(String format) {
+		this.format = format;
+	}
+
+	public String getTarget() {
+		return target;
+	}
+
+	public void setTarget(String target) {
+		this.target = target;
+	}
+
+	public String getMode() {
+		return mode;
+	}
+
+	public void setMode(String mode) {
+		this.mode = mode;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+}
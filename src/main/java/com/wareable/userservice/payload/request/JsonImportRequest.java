@@ -0,0 +1,69 @@
+package com.wareable.userservice.payload.request;
+
+import java.util.List;
+
+public class JsonImportRequest {
+	private String url;
+
+	private List<String> urls;
+
+	/** "append" or "delta"; defaults to userservice.import.delta.enabled. */
+	private String mode;
+
+	/** Delta mode: dotted path of the field identifying a document; content hash when absent. */
+	private String key;
+
+	/** Delta mode: mark stored documents missing from the source as deleted. */
+	private boolean tombstone;
+
+	/** Read the source even if its ETag or Last-Modified is unchanged since the last import. */
+	private boolean force;
+
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	public List<String> getUrls() {
+		return urls;
+	}
+
+	public void setUrls(List<String> urls) {
+		this.urls = urls;
+	}
+
+	public String getMode() {
+		return mode;
+	}
+
+	public void setMode(String mode) {
+		this.mode = mode;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public boolean isTombstone() {
+		return tombstone;
+	}
+
+	public void setTombstone(boolean tombstone) {
+		this.tombstone = tombstone;
+	}
+
+	public boolean isForce() {
+		return force;
+	}
+
+	public void setForce(boolean force) {
+		this.force = force;
+	}
+}
@@ -0,0 +1,36 @@
+package com.wareable.userservice.payload.response;
+
+public class SignupResult {
+
+	public enum Status {
+		CREATED, DUPLICATE_USERNAME, DUPLICATE_EMAIL, INVALID, FAILED
+	}
+
+	private final int index;
+	private final String username;
+	private final Status status;
+	private final String message;
+
+	public SignupResult(int index, String username, Status status, String message) {
+		this.index = index;
+		this.username = username;
+		this.status = status;
+		this.message = message;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+}
@@ -0,0 +1,24 @@
+package com.wareable.userservice.payload.response;
+
+import java.util.List;
+import java.util.Map;
+
+public class UserPage {
+	private final List<Map<String, Object>> users;
+
+	private final String nextCursor;
+
+	public UserPage(List<Map<String, Object>> users, String nextCursor) {
+		this.users = users;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<Map<String, Object>> getUsers() {
+		return users;
+	}
+
+	/** Pass as {@code after} to get the next page; null on the last page. */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+}
@@ -0,0 +1,14 @@
+package com.wareable.userservice.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.wareable.userservice.model.RevokedToken;
+
+@Repository
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+	List<RevokedToken> findByExpiresAtAfter(Date date);
+}
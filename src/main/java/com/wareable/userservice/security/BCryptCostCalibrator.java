@@ -0,0 +1,70 @@
+package com.wareable.userservice.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Picks the BCrypt cost for the hardware the service runs on: the highest
+ * cost whose hash still fits the latency budget. Every cost step doubles the
+ * work, so the search stops at the first cost that is over budget.
+ */
+final class BCryptCostCalibrator {
+
+	private static final Logger logger = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+	// BCryptPasswordEncoder accepts 4..31; above 20 a single hash takes minutes
+	private static final int LOWEST_COST = 4;
+	private static final int HIGHEST_COST = 20;
+
+	private static final String SAMPLE_PASSWORD = "calibration-Passw0rd!";
+
+	private BCryptCostCalibrator() {
+	}
+
+	/**
+	 * @param budgetMillis target time for one hash
+	 * @param minCost      never go below this cost, even on slow hardware
+	 * @param maxCost      never go above this cost, even on fast hardware
+	 */
+	static int calibrate(long budgetMillis, int minCost, int maxCost) {
+		int floor = Math.max(LOWEST_COST, minCost);
+		int ceiling = Math.min(HIGHEST_COST, Math.max(floor, maxCost));
+		long budgetNanos = budgetMillis * 1_000_000;
+
+		// warm up the JIT so the first measurement is not dominated by interpretation
+		new BCryptPasswordEncoder(LOWEST_COST).encode(SAMPLE_PASSWORD);
+
+		int chosen = floor;
+		long chosenNanos = measure(floor);
+		for (int cost = floor + 1; cost <= ceiling && chosenNanos * 2 <= budgetNanos; cost++) {
+			long nanos = measure(cost);
+			if (nanos > budgetNanos) {
+				break;
+			}
+			chosen = cost;
+			chosenNanos = nanos;
+		}
+
+		if (chosenNanos > budgetNanos) {
+			logger.warn("BCrypt cost {} takes {} ms per hash, above the {} ms budget", chosen, chosenNanos / 1_000_000,
+					budgetMillis);
+		} else {
+			logger.info("Calibrated BCrypt cost {} ({} ms per hash, budget {} ms)", chosen, chosenNanos / 1_000_000,
+					budgetMillis);
+		}
+		return chosen;
+	}
+
+	/** Best of two runs, to filter out a GC pause or a noisy neighbour. */
+	private static long measure(int cost) {
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < 2; i++) {
+			long started = System.nanoTime();
+			encoder.encode(SAMPLE_PASSWORD);
+			best = Math.min(best, System.nanoTime() - started);
+		}
+		return best;
+	}
+}
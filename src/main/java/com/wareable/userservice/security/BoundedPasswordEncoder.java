@@ -0,0 +1,134 @@
+package com.wareable.userservice.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.wareable.userservice.exception.PasswordHashingRejectedException;
+
+/**
+ * Runs a (slow, CPU-bound) password encoder on a dedicated pool with a
+ * bounded queue. However many signins and signups arrive at once, at most
+ * {@code threads} cores are spent hashing, so the request threads serving
+ * cheap endpoints keep a CPU. When the queue is full the call fails at once
+ * with a {@link PasswordHashingRejectedException} instead of piling up.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+	private final PasswordEncoder delegate;
+
+	private final ThreadPoolExecutor executor;
+
+	private final int queueCapacity;
+
+	private final long retryAfterSeconds;
+
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder hashNanos = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+	public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long retryAfterSeconds) {
+		this.delegate = delegate;
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.queueCapacity = Math.max(1, queueCapacity);
+		this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+		AtomicInteger count = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(this.queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "password-hash-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		this.executor.prestartAllCoreThreads();
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return run(() -> delegate.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return run(() -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+
+	/**
+	 * The wrapped encoder, for bulk work that bounds its own parallelism and
+	 * must not take the queue slots interactive signins rely on.
+	 */
+	public PasswordEncoder getDelegate() {
+		return delegate;
+	}
+
+	public PasswordHashingStats getStats() {
+		long done = completed.sum();
+		return new PasswordHashingStats(executor.getCorePoolSize(), executor.getActiveCount(),
+				executor.getQueue().size(), queueCapacity, done, rejected.sum(), averageMillis(hashNanos, done),
+				averageMillis(waitNanos, done), maxHashNanos.get() / 1_000_000.0);
+	}
+
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	private <T> T run(Callable<T> task) {
+		long submitted = System.nanoTime();
+		Future<T> future;
+		try {
+			future = executor.submit(() -> {
+				long started = System.nanoTime();
+				try {
+					return task.call();
+				} finally {
+					long elapsed = System.nanoTime() - started;
+					waitNanos.add(started - submitted);
+					hashNanos.add(elapsed);
+					maxHashNanos.accumulate(elapsed);
+					completed.increment();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw new PasswordHashingRejectedException("Too many concurrent password operations, try again later",
+					retryAfterSeconds);
+		}
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new PasswordHashingRejectedException("Interrupted while waiting for password hashing",
+					retryAfterSeconds);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private static double averageMillis(LongAdder totalNanos, long count) {
+		return count == 0 ? 0 : totalNanos.sum() / (double) count / 1_000_000.0;
+	}
+}
@@ -0,0 +1,62 @@
+package com.wareable.userservice.security;
+
+public class PasswordHashingStats {
+	private final int threads;
+	private final int active;
+	private final int queued;
+	private final int queueCapacity;
+	private final long completed;
+	private final long rejected;
+	private final double averageHashMillis;
+	private final double averageWaitMillis;
+	private final double maxHashMillis;
+
+	public PasswordHashingStats(int threads, int active, int queued, int queueCapacity, long completed, long rejected,
+			double averageHashMillis, double averageWaitMillis, double maxHashMillis) {
+		this.threads = threads;
+		this.active = active;
+		this.queued = queued;
+		this.queueCapacity = queueCapacity;
+		this.completed = completed;
+		this.rejected = rejected;
+		this.averageHashMillis = averageHashMillis;
+		this.averageWaitMillis = averageWaitMillis;
+		this.maxHashMillis = maxHashMillis;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getActive() {
+		return active;
+	}
+
+	public int getQueued() {
+		return queued;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public long getCompleted() {
+		return completed;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	public double getAverageHashMillis() {
+		return averageHashMillis;
+	}
+
+	public double getAverageWaitMillis() {
+		return averageWaitMillis;
+	}
+
+	public double getMaxHashMillis() {
+		return maxHashMillis;
+	}
+}
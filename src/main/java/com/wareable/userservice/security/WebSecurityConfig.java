@@ -1,6 +1,7 @@
 package com.wareable.userservice.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,7 +11,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -28,6 +28,27 @@ public class WebSecurityConfig {
 	@Autowired
 	private AuthEntryPointJwt unauthorizedHandler;
 
+	@Value("${userservice.app.passwordHashCost:0}")
+	private int passwordHashCost;
+
+	@Value("${userservice.app.passwordHashBudgetMs:50}")
+	private long passwordHashBudgetMs;
+
+	@Value("${userservice.app.passwordHashMinCost:10}")
+	private int passwordHashMinCost;
+
+	@Value("${userservice.app.passwordHashMaxCost:16}")
+	private int passwordHashMaxCost;
+
+	@Value("${userservice.app.passwordHashThreads:0}")
+	private int passwordHashThreads;
+
+	@Value("${userservice.app.passwordHashQueueCapacity:64}")
+	private int passwordHashQueueCapacity;
+
+	@Value("${userservice.app.passwordHashRetryAfterSeconds:1}")
+	private long passwordHashRetryAfterSeconds;
+
 	@Bean
 	AuthTokenFilter authenticationJwtTokenFilter() {
 		return new AuthTokenFilter();
@@ -38,6 +59,8 @@ public class WebSecurityConfig {
 		DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 		authProvider.setUserDetailsService(userDetailsService);
 		authProvider.setPasswordEncoder(passwordEncoder());
+		// rehashes stored passwords with an outdated cost on successful signin
+		authProvider.setUserDetailsPasswordService(userDetailsService);
 		return authProvider;
 	}
 
@@ -46,9 +69,12 @@ public class WebSecurityConfig {
 		return authConfig.getAuthenticationManager();
 	}
 
-	@Bean
-	PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	@Bean(destroyMethod = "close")
+	BoundedPasswordEncoder passwordEncoder() {
+		int cost = passwordHashCost > 0 ? passwordHashCost
+				: BCryptCostCalibrator.calibrate(passwordHashBudgetMs, passwordHashMinCost, passwordHashMaxCost);
+		return new BoundedPasswordEncoder(new BCryptPasswordEncoder(cost), passwordHashThreads, passwordHashQueueCapacity,
+				passwordHashRetryAfterSeconds);
 	}
 
 	@Bean
@@ -1,6 +1,7 @@
 package com.wareable.userservice.security.jwt;
 
 import java.io.IOException;
+import java.util.List;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -10,15 +11,27 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.wareable.userservice.services.impl.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+
+/**
+ * Authenticates requests carrying a bearer token. With
+ * {@code userservice.app.jwtStatelessAuth} enabled the principal is rebuilt
+ * from the verified token claims alone; requests matching
+ * {@code userservice.app.jwtDbLookupPaths}, and tokens issued before roles were
+ * embedded, still load the user from MongoDB. Tokens denied by the
+ * {@link TokenRevocationService} are ignored, leaving the request anonymous.
+ */
 public class AuthTokenFilter extends OncePerRequestFilter {
 	@Autowired
 	private JwtUtils jwtUtils;
@@ -26,6 +39,17 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 	@Autowired
 	private UserDetailsServiceImpl userDetailsService;
 
+	@Autowired
+	private TokenRevocationService tokenRevocationService;
+
+	@Value("${userservice.app.jwtStatelessAuth:true}")
+	private boolean statelessAuth;
+
+	@Value("${userservice.app.jwtDbLookupPaths:}")
+	private List<String> dbLookupPaths;
+
+	private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
 	private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
 	@Override
@@ -33,10 +57,15 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 			throws ServletException, IOException {
 		try {
 			String jwt = parseJwt(request);
-			if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-				String username = jwtUtils.getUserNameFromJwtToken(jwt);
+			JwtValidationResult result = jwt != null ? jwtUtils.parseAndValidate(jwt) : null;
+			if (result != null && result.isValid() && tokenRevocationService.isRevoked(result.getClaims())) {
+				logger.warn("Rejected revoked JWT token of user {}", result.getClaims().getSubject());
+			} else if (result != null && result.isValid()) {
+				Claims claims = result.getClaims();
 
-				UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+				UserDetails userDetails = statelessAuth && jwtUtils.hasUserDetails(claims)
+						&& !requiresDatabaseLookup(request) ? jwtUtils.getUserDetailsFromClaims(claims)
+								: userDetailsService.loadUserByUsername(claims.getSubject());
 				UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
 						userDetails, null, userDetails.getAuthorities());
 				authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -50,6 +79,16 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 		filterChain.doFilter(request, response);
 	}
 
+	private boolean requiresDatabaseLookup(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		for (String pattern : dbLookupPaths) {
+			if (pathMatcher.match(pattern, path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private String parseJwt(HttpServletRequest request) {
 		String headerAuth = request.getHeader("Authorization");
 		if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
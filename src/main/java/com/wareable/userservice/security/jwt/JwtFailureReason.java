@@ -0,0 +1,5 @@
+package com.wareable.userservice.security.jwt;
+
+public enum JwtFailureReason {
+	MALFORMED, EXPIRED, UNSUPPORTED, INVALID_SIGNATURE, EMPTY
+}
@@ -1,61 +1,199 @@
 package com.wareable.userservice.security.jwt;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import com.wareable.userservice.services.impl.UserDetailsImpl;
+import com.wareable.userservice.services.support.BoundedTtlCache;
+import com.wareable.userservice.services.support.CacheStats;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 
 @Component
 public class JwtUtils {
 	private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+	static final String CLAIM_USER_ID = "id";
+
+	static final String CLAIM_EMAIL = "email";
+
+	static final String CLAIM_ROLES = "roles";
+
 	@Value("${userservice.app.jwtSecret}")
 	private String jwtSecret;
 
 	@Value("${userservice.app.jwtExpirationMs}")
 	private int jwtExpirationMs;
 
+	@Value("${userservice.app.jwtCacheEnabled:true}")
+	private boolean jwtCacheEnabled;
+
+	@Value("${userservice.app.jwtCacheMaxSize:100000}")
+	private int jwtCacheMaxSize;
+
+	// Both are immutable and thread-safe, so they are built once and shared.
+	private Key signingKey;
+
+	private JwtParser jwtParser;
+
+	// Claims of tokens that already passed verification, keyed by the token's SHA-256.
+	private BoundedTtlCache<TokenDigest, Claims> verifiedTokens;
+
+	private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	});
+
+	@PostConstruct
+	void init() {
+		signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+		jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+		verifiedTokens = new BoundedTtlCache<>(jwtCacheMaxSize, Duration.ofMillis(jwtExpirationMs));
+	}
+
 	public String generateJwtToken(Authentication authentication) {
 
 		UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
-		return Jwts.builder().setSubject((userPrincipal.getUsername())).setIssuedAt(new Date())
+		List<String> roles = userPrincipal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+
+		return Jwts.builder().setId(UUID.randomUUID().toString()).setSubject((userPrincipal.getUsername())).claim(CLAIM_USER_ID, userPrincipal.getId())
+				.claim(CLAIM_EMAIL, userPrincipal.getEmail()).claim(CLAIM_ROLES, roles).setIssuedAt(new Date())
 				.setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-				.signWith(key(), SignatureAlgorithm.HS256).compact();
+				.signWith(signingKey, SignatureAlgorithm.HS256).compact();
+	}
+
+	/** Whether the token carries enough claims to authenticate without a database lookup. */
+	public boolean hasUserDetails(Claims claims) {
+		return claims.get(CLAIM_USER_ID) != null && claims.get(CLAIM_ROLES) instanceof Collection;
 	}
 
-	private Key key() {
-		return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+	/**
+	 * Rebuilds the principal from verified claims. The password is not part of
+	 * the token, so the result can only be used for authorization.
+	 */
+	public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+		List<GrantedAuthority> authorities = ((Collection<?>) claims.get(CLAIM_ROLES)).stream()
+				.map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.toString())).toList();
+
+		return new UserDetailsImpl(claims.get(CLAIM_USER_ID, String.class), claims.getSubject(),
+				claims.get(CLAIM_EMAIL, String.class), null, authorities);
 	}
 
-	public String getUserNameFromJwtToken(String token) {
-		return Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(token).getBody().getSubject();
+	/**
+	 * Verifies the signature and expiry of a token and returns its claims, parsing
+	 * it exactly once. Verified claims are cached until the token expires, so a
+	 * token that is presented again is only hashed.
+	 */
+	public JwtValidationResult parseAndValidate(String authToken) {
+		if (!jwtCacheEnabled || authToken == null || authToken.isEmpty()) {
+			return verify(authToken);
+		}
+		TokenDigest digest = TokenDigest.of(authToken);
+		Claims cached = verifiedTokens.getIfPresent(digest).orElse(null);
+		if (cached != null) {
+			return JwtValidationResult.valid(cached);
+		}
+		JwtValidationResult result = verify(authToken);
+		if (result.isValid()) {
+			Date expiration = result.getClaims().getExpiration();
+			Duration ttl = expiration != null ? Duration.ofMillis(expiration.getTime() - System.currentTimeMillis())
+					: Duration.ofMillis(jwtExpirationMs);
+			verifiedTokens.put(digest, result.getClaims(), ttl);
+		}
+		return result;
 	}
 
-	public boolean validateJwtToken(String authToken) {
+	/** Forgets a verified token, so the next request carrying it is verified again. */
+	public void evictToken(String authToken) {
+		if (authToken != null && !authToken.isEmpty()) {
+			verifiedTokens.invalidate(TokenDigest.of(authToken));
+		}
+	}
+
+	/** Forgets every verified token issued to {@code username}. */
+	public void evictTokensOf(String username) {
+		verifiedTokens.invalidateIf((digest, claims) -> Objects.equals(username, claims.getSubject()));
+	}
+
+	/** Forgets the verified token with the given {@code jti}. Walks the whole cache. */
+	public void evictTokenId(String tokenId) {
+		verifiedTokens.invalidateIf((digest, claims) -> Objects.equals(tokenId, claims.getId()));
+	}
+
+	public CacheStats getTokenCacheStats() {
+		return verifiedTokens.getStats();
+	}
+
+	private JwtValidationResult verify(String authToken) {
 		try {
-			Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-			return true;
+			return JwtValidationResult.valid(jwtParser.parseClaimsJws(authToken).getBody());
 		} catch (MalformedJwtException e) {
 			logger.error("Invalid JWT token: {}", e.getMessage());
+			return JwtValidationResult.invalid(JwtFailureReason.MALFORMED);
 		} catch (ExpiredJwtException e) {
 			logger.error("JWT token is expired: {}", e.getMessage());
+			return JwtValidationResult.invalid(JwtFailureReason.EXPIRED);
 		} catch (UnsupportedJwtException e) {
 			logger.error("JWT token is unsupported: {}", e.getMessage());
+			return JwtValidationResult.invalid(JwtFailureReason.UNSUPPORTED);
+		} catch (SignatureException e) {
+			logger.error("Invalid JWT signature: {}", e.getMessage());
+			return JwtValidationResult.invalid(JwtFailureReason.INVALID_SIGNATURE);
 		} catch (IllegalArgumentException e) {
 			logger.error("JWT claims string is empty: {}", e.getMessage());
+			return JwtValidationResult.invalid(JwtFailureReason.EMPTY);
+		} catch (JwtException e) {
+			logger.error("Invalid JWT token: {}", e.getMessage());
+			return JwtValidationResult.invalid(JwtFailureReason.MALFORMED);
 		}
+	}
+
+	private static final class TokenDigest {
+		private final byte[] bytes;
+		private final int hash;
 
-		return false;
+		private TokenDigest(byte[] bytes) {
+			this.bytes = bytes;
+			this.hash = Arrays.hashCode(bytes);
+		}
+
+		static TokenDigest of(String token) {
+			return new TokenDigest(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof TokenDigest digest && Arrays.equals(bytes, digest.bytes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
 	}
 }
@@ -0,0 +1,39 @@
+package com.wareable.userservice.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Outcome of {@link JwtUtils#parseAndValidate(String)}: either the verified
+ * claims or the reason the token was rejected.
+ */
+public final class JwtValidationResult {
+
+	private final Claims claims;
+
+	private final JwtFailureReason failureReason;
+
+	private JwtValidationResult(Claims claims, JwtFailureReason failureReason) {
+		this.claims = claims;
+		this.failureReason = failureReason;
+	}
+
+	static JwtValidationResult valid(Claims claims) {
+		return new JwtValidationResult(claims, null);
+	}
+
+	static JwtValidationResult invalid(JwtFailureReason failureReason) {
+		return new JwtValidationResult(null, failureReason);
+	}
+
+	public boolean isValid() {
+		return claims != null;
+	}
+
+	public Claims getClaims() {
+		return claims;
+	}
+
+	public JwtFailureReason getFailureReason() {
+		return failureReason;
+	}
+}
@@ -0,0 +1,176 @@
+package com.wareable.userservice.security.jwt;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.wareable.userservice.model.RevokedToken;
+import com.wareable.userservice.repository.RevokedTokenRepository;
+import com.wareable.userservice.services.support.ConcurrentBloomFilter;
+
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Denylist for JWTs that must stop working before they expire.
+ * <p>
+ * Revocations are stored in MongoDB ({@link RevokedToken}) and mirrored into
+ * memory: a {@link ConcurrentBloomFilter} holding every revoked token id and
+ * username, backed by exact maps. {@link #isRevoked(Claims)} runs on every
+ * authenticated request; for the usual, non-revoked token it is answered by
+ * the bloom filter without touching the maps or the database. The mirror is
+ * rebuilt from MongoDB periodically, which picks up revocations made on other
+ * nodes and drops expired ones.
+ */
+@Service
+public class TokenRevocationService {
+
+	private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+	private static final String USER_PREFIX = "user:";
+
+	private final RevokedTokenRepository revokedTokenRepository;
+
+	private final JwtUtils jwtUtils;
+
+	private final long jwtExpirationMs;
+
+	private final long reloadSeconds;
+
+	private final long expectedEntries;
+
+	private final double falsePositiveRate;
+
+	private volatile Denylist denylist;
+
+	private ScheduledExecutorService scheduler;
+
+	public TokenRevocationService(RevokedTokenRepository revokedTokenRepository, JwtUtils jwtUtils,
+			@Value("${userservice.app.jwtExpirationMs}") long jwtExpirationMs,
+			@Value("${userservice.app.jwtRevocationReloadSeconds:30}") long reloadSeconds,
+			@Value("${userservice.app.jwtRevocationExpectedEntries:100000}") long expectedEntries,
+			@Value("${userservice.app.jwtRevocationFalsePositiveRate:0.01}") double falsePositiveRate) {
+		this.revokedTokenRepository = revokedTokenRepository;
+		this.jwtUtils = jwtUtils;
+		this.jwtExpirationMs = jwtExpirationMs;
+		this.reloadSeconds = Math.max(1, reloadSeconds);
+		this.expectedEntries = expectedEntries;
+		this.falsePositiveRate = falsePositiveRate;
+		this.denylist = new Denylist(expectedEntries, falsePositiveRate);
+	}
+
+	@PostConstruct
+	public void start() {
+		reload();
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "token-revocation-reload");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::reload, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	public boolean isRevoked(Claims claims) {
+		Denylist current = denylist;
+		String tokenId = claims.getId();
+		if (tokenId != null && current.filter.mightContain(tokenId)) {
+			Long expiresAt = current.tokens.get(tokenId);
+			if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+				return true;
+			}
+		}
+		String username = claims.getSubject();
+		if (username != null && current.filter.mightContain(USER_PREFIX + username)) {
+			Long revokedBefore = current.users.get(username);
+			Date issuedAt = claims.getIssuedAt();
+			// iat has second precision, so a token from the same second counts as revoked
+			return revokedBefore != null && (issuedAt == null || issuedAt.getTime() <= revokedBefore);
+		}
+		return false;
+	}
+
+	/** Revokes a single token, identified by its {@code jti} claim. */
+	public void revokeToken(Claims claims) {
+		if (claims.getId() == null) {
+			// issued before tokens carried an id: fall back to the whole user
+			revokeUser(claims.getSubject());
+			return;
+		}
+		Date expiresAt = claims.getExpiration() != null ? claims.getExpiration()
+				: new Date(System.currentTimeMillis() + jwtExpirationMs);
+		revokedTokenRepository.save(RevokedToken.ofToken(claims.getId(), expiresAt));
+		synchronized (this) {
+			denylist.addToken(claims.getId(), expiresAt.getTime());
+		}
+		jwtUtils.evictTokenId(claims.getId());
+	}
+
+	/** Revokes every token issued to {@code username} up to now. */
+	public void revokeUser(String username) {
+		long now = System.currentTimeMillis();
+		revokedTokenRepository.save(RevokedToken.ofUser(username, new Date(now), new Date(now + jwtExpirationMs)));
+		synchronized (this) {
+			denylist.addUser(username, now);
+		}
+		jwtUtils.evictTokensOf(username);
+	}
+
+	/**
+	 * Rebuilds the in-memory mirror from MongoDB. Holding the monitor keeps a
+	 * concurrent local revocation from landing in the list that is about to
+	 * be replaced.
+	 */
+	public synchronized void reload() {
+		try {
+			List<RevokedToken> active = revokedTokenRepository.findByExpiresAtAfter(new Date());
+			Denylist fresh = new Denylist(Math.max(expectedEntries, 2L * active.size()), falsePositiveRate);
+			for (RevokedToken revoked : active) {
+				if (revoked.getTokenId() != null) {
+					fresh.addToken(revoked.getTokenId(), revoked.getExpiresAt().getTime());
+				} else if (revoked.getUsername() != null && revoked.getRevokedBefore() != null) {
+					fresh.addUser(revoked.getUsername(), revoked.getRevokedBefore().getTime());
+				}
+			}
+			denylist = fresh;
+		} catch (RuntimeException e) {
+			logger.warn("Could not reload revoked tokens, keeping the current list: {}", e.getMessage());
+		}
+	}
+
+	private static final class Denylist {
+		final ConcurrentBloomFilter filter;
+		final ConcurrentHashMap<String, Long> tokens = new ConcurrentHashMap<>();
+		final ConcurrentHashMap<String, Long> users = new ConcurrentHashMap<>();
+
+		Denylist(long expectedEntries, double falsePositiveRate) {
+			this.filter = new ConcurrentBloomFilter(expectedEntries, falsePositiveRate);
+		}
+
+		// the exact entry is published before the filter bit, so a filter hit always finds it
+		void addToken(String tokenId, long expiresAt) {
+			tokens.merge(tokenId, expiresAt, Math::max);
+			filter.put(tokenId);
+		}
+
+		void addUser(String username, long revokedBefore) {
+			users.merge(username, revokedBefore, Math::max);
+			filter.put(USER_PREFIX + username);
+		}
+	}
+}
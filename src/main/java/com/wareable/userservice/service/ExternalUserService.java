@@ -1,17 +1,60 @@
 package com.wareable.userservice.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
-import com.wareable.userservice.model.AppUser;
+import com.wareable.userservice.importer.DeltaOptions;
+import com.wareable.userservice.importer.FileImportResult;
+import com.wareable.userservice.importer.ImportProgress;
+import com.wareable.userservice.importer.ImportResult;
+import com.wareable.userservice.importer.MappedFileImporter;
+import com.wareable.userservice.importer.MultiSourceImportSummary;
+import com.wareable.userservice.importer.UserImportSummary;
+import com.wareable.userservice.payload.response.UserPage;
 
 public interface ExternalUserService {
 
-	List<AppUser> getUsers();
+	/**
+	 * Returns up to {@code limit} users with an id greater than {@code after}
+	 * (from the start when null), holding only {@code fields} out of id,
+	 * username, email and roles.
+	 */
+	UserPage getUsers(String after, int limit, Set<String> fields);
 
-	void importUsersFromCustomUrl(String url);
+	default UserImportSummary importUsersFromCustomUrl(String url) {
+		return importUsersFromCustomUrl(url, false, ImportProgress.NONE);
+	}
 
-	void importRawJsonFromUrl(String url);
+	/** Imports the users at {@code url}; with {@code force} even if the source reports no change. */
+	UserImportSummary importUsersFromCustomUrl(String url, boolean force, ImportProgress progress);
 
-	List<Map<String, Object>> getJsonData();
+	default ImportResult importRawJsonFromUrl(String url) {
+		return importRawJsonFromUrl(url, null, false, ImportProgress.NONE);
+	}
+
+	/**
+	 * Imports {@code url}; inserts every document, or merges them by
+	 * {@code delta} when it is set. With {@code force} the source is read even
+	 * if it reports no change.
+	 */
+	ImportResult importRawJsonFromUrl(String url, DeltaOptions delta, boolean force, ImportProgress progress);
+
+	/** Imports several URLs concurrently; a failing source does not fail the others. */
+	MultiSourceImportSummary importRawJsonFromUrls(List<String> urls, DeltaOptions delta, boolean force,
+			ImportProgress progress) throws InterruptedException;
+
+	/** Resolves a path relative to the file import directory; rejects anything outside it. */
+	Path resolveImportFile(String relativePath) throws IOException;
+
+	FileImportResult importFromFile(Path file, MappedFileImporter.Format format, MappedFileImporter.Target target,
+			DeltaOptions delta, ImportProgress progress) throws IOException, InterruptedException;
+
+	/**
+	 * Streams the live documents of the raw data collection to {@code out}, as
+	 * one JSON array or as newline-delimited JSON; returns how many were written.
+	 */
+	long writeJsonData(OutputStream out, boolean ndjson) throws IOException;
 }
@@ -0,0 +1,258 @@
+package com.wareable.userservice.services.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.wareable.userservice.logging.LogEvent;
+import com.wareable.userservice.logging.LogUploaderService;
+import com.wareable.userservice.model.AppUser;
+import com.wareable.userservice.payload.request.SignupRequest;
+import com.wareable.userservice.payload.response.SignupResult;
+import com.wareable.userservice.security.BoundedPasswordEncoder;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Registers many users at once. Requests are handled in chunks: each chunk is
+ * validated, its passwords are hashed on a dedicated fork-join pool and the
+ * users are written with one unordered bulk insert, so a duplicate only fails
+ * its own item. Results are written as a JSON array, flushed after every
+ * chunk, so large batches report progress as they go. A streamed batch has
+ * its own timeout ({@code signupBatchTimeout}) instead of the global async
+ * request timeout.
+ * <p>
+ * The hash pool is separate from the {@link BoundedPasswordEncoder} queue, so
+ * a batch cannot starve interactive signins; by default it uses half the
+ * cores.
+ */
+@Service
+public class BulkSignupService {
+
+	private static final int DUPLICATE_KEY = 11000;
+
+	private final MongoTemplate mongoTemplate;
+
+	private final PasswordEncoder passwordEncoder;
+
+	private final RoleRegistry roleRegistry;
+
+	private final Validator validator;
+
+	private final ObjectMapper objectMapper;
+
+	private final LogUploaderService logUploaderService;
+
+	private final int chunkSize;
+
+	private final ForkJoinPool hashPool;
+
+	private final ExecutorService streamExecutor;
+
+	private final Duration batchTimeout;
+
+	public BulkSignupService(MongoTemplate mongoTemplate, BoundedPasswordEncoder passwordEncoder,
+			RoleRegistry roleRegistry, Validator validator, ObjectMapper objectMapper,
+			LogUploaderService logUploaderService,
+			@Value("${userservice.app.signupBatchChunkSize:500}") int chunkSize,
+			@Value("${userservice.app.signupBatchHashParallelism:0}") int hashParallelism,
+			@Value("${userservice.app.signupBatchTimeout:2h}") Duration batchTimeout) {
+		this.mongoTemplate = mongoTemplate;
+		// the bounded pool is kept for interactive signins; bulk hashing is bounded by its own pool
+		this.passwordEncoder = passwordEncoder.getDelegate();
+		this.roleRegistry = roleRegistry;
+		this.validator = validator;
+		this.objectMapper = objectMapper;
+		this.logUploaderService = logUploaderService;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.hashPool = new ForkJoinPool(hashParallelism > 0 ? hashParallelism
+				: Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+		this.batchTimeout = batchTimeout;
+		AtomicInteger count = new AtomicInteger();
+		this.streamExecutor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "bulk-signup-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	public void stop() {
+		streamExecutor.shutdownNow();
+		hashPool.shutdownNow();
+	}
+
+	/**
+	 * Registers {@code requests} in the background and streams the results
+	 * through the returned emitter, which times out after
+	 * {@code signupBatchTimeout}.
+	 */
+	public ResponseBodyEmitter registerStreaming(List<SignupRequest> requests) {
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeout.toMillis());
+		streamExecutor.execute(() -> {
+			try {
+				register(requests, new EmitterOutputStream(emitter));
+				emitter.complete();
+			} catch (IOException | RuntimeException e) {
+				// client gone or emitter timed out; users inserted so far stay registered
+				emitter.completeWithError(e);
+			}
+		});
+		return emitter;
+	}
+
+	/** Registers {@code requests} and writes one {@link SignupResult} per request to {@code out}. */
+	public void register(List<SignupRequest> requests, OutputStream out) throws IOException {
+		int created = 0;
+		try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+			json.writeStartArray();
+			for (int from = 0; from < requests.size(); from += chunkSize) {
+				for (SignupResult result : registerChunk(requests, from, Math.min(requests.size(), from + chunkSize))) {
+					json.writeObject(result);
+					if (result.getStatus() == SignupResult.Status.CREATED) {
+						created++;
+					}
+				}
+				json.flush();
+			}
+			json.writeEndArray();
+		}
+		logUploaderService.log(LogEvent.dbTransaction("Batch signup finished",
+				created + " of " + requests.size() + " users created"));
+	}
+
+	private List<SignupResult> registerChunk(List<SignupRequest> requests, int from, int to) {
+		SignupResult[] results = new SignupResult[to - from];
+		List<Integer> accepted = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			SignupRequest request = requests.get(i);
+			String problem = validate(request);
+			if (problem != null) {
+				results[i - from] = new SignupResult(i, request != null ? request.getUsername() : null,
+						SignupResult.Status.INVALID, problem);
+			} else {
+				accepted.add(i);
+			}
+		}
+		if (accepted.isEmpty()) {
+			return List.of(results);
+		}
+
+		List<AppUser> users = hashPool
+				.submit(() -> accepted.parallelStream().map(i -> toUser(requests.get(i))).toList()).join();
+
+		Map<Integer, BulkWriteError> errors = new HashMap<>();
+		String failure = null;
+		try {
+			BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AppUser.class);
+			bulk.insert(users);
+			bulk.execute();
+		} catch (BulkOperationException e) {
+			for (BulkWriteError error : e.getErrors()) {
+				errors.put(error.getIndex(), error);
+			}
+		} catch (DataAccessException e) {
+			failure = e.getMessage();
+		}
+
+		for (int k = 0; k < accepted.size(); k++) {
+			int index = accepted.get(k);
+			String username = requests.get(index).getUsername();
+			BulkWriteError error = errors.get(k);
+			if (failure != null) {
+				results[index - from] = new SignupResult(index, username, SignupResult.Status.FAILED, failure);
+			} else if (error == null) {
+				results[index - from] = new SignupResult(index, username, SignupResult.Status.CREATED, null);
+			} else if (error.getCode() == DUPLICATE_KEY && error.getMessage().contains(AppUser.EMAIL_INDEX)) {
+				results[index - from] = new SignupResult(index, username, SignupResult.Status.DUPLICATE_EMAIL,
+						"Error: Email is already in use!");
+			} else if (error.getCode() == DUPLICATE_KEY) {
+				results[index - from] = new SignupResult(index, username, SignupResult.Status.DUPLICATE_USERNAME,
+						"Error: Username is already taken!");
+			} else {
+				results[index - from] = new SignupResult(index, username, SignupResult.Status.FAILED,
+						error.getMessage());
+			}
+		}
+		return List.of(results);
+	}
+
+	private String validate(SignupRequest request) {
+		if (request == null) {
+			return "Request is empty";
+		}
+		Set<ConstraintViolation<SignupRequest>> violations = validator.validate(request);
+		if (violations.isEmpty()) {
+			return null;
+		}
+		return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+	}
+
+	private AppUser toUser(SignupRequest request) {
+		AppUser user = new AppUser(request.getUsername(), request.getEmail(),
+				passwordEncoder.encode(request.getPassword()));
+		user.setRoles(roleRegistry.resolve(request.getRole()));
+		return user;
+	}
+
+	/** Buffers written bytes and sends them as one emitter chunk per flush. */
+	private static final class EmitterOutputStream extends OutputStream {
+
+		private final ResponseBodyEmitter emitter;
+
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+		EmitterOutputStream(ResponseBodyEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void write(int b) {
+			buffer.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			buffer.write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (buffer.size() > 0) {
+				emitter.send(buffer.toByteArray(), MediaType.APPLICATION_JSON);
+				buffer.reset();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
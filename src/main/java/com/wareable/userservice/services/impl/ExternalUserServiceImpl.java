@@ -1,28 +1,60 @@
 package com.wareable.userservice.services.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wareable.userservice.importer.DeltaOptions;
+import com.wareable.userservice.importer.FileImportResult;
+import com.wareable.userservice.importer.HttpSourceFetcher;
+import com.wareable.userservice.importer.ImportProgress;
+import com.wareable.userservice.importer.ImportResult;
+import com.wareable.userservice.importer.MappedFileImporter;
+import com.wareable.userservice.importer.MultiSourceImportSummary;
+import com.wareable.userservice.importer.MultiSourceImporter;
+import com.wareable.userservice.importer.StreamingJsonImporter;
+import com.wareable.userservice.importer.UserImportSummary;
+import com.wareable.userservice.importer.UserUpsertImporter;
+import com.wareable.userservice.logging.LogEvent;
 import com.wareable.userservice.logging.LogUploaderService;
 import com.wareable.userservice.model.AppUser;
 import com.wareable.userservice.payload.request.ExternalUser;
-import com.wareable.userservice.repository.UserRepository;
+import com.wareable.userservice.payload.response.UserPage;
 import com.wareable.userservice.service.ExternalUserService;
 
 @Service
 public class ExternalUserServiceImpl implements ExternalUserService {
 
-	@Autowired
-	private UserRepository userRepository;
+	private static final String RAW_DATA_COLLECTION = StreamingJsonImporter.RAW_DATA_COLLECTION;
+
+	private static final String USERS_SCOPE = "users";
+
+	/** Documents per cursor batch and per flush when streaming /list-json-data. */
+	private static final int JSON_DATA_BATCH_SIZE = 1000;
+
+	/** Fields /list-user-data may return, in output order. */
+	private static final List<String> USER_FIELDS = List.of("id", "username", "email", "roles");
 
 	@Autowired
 	private LogUploaderService logUploaderService;
@@ -31,87 +63,187 @@ public class ExternalUserServiceImpl implements ExternalUserService {
 	private MongoTemplate mongoTemplate;
 
 	@Autowired
-	private ObjectMapper objectMapper; // add this as a Spring bean if not already
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private StreamingJsonImporter streamingJsonImporter;
+
+	@Autowired
+	private UserUpsertImporter userUpsertImporter;
+
+	@Autowired
+	private HttpSourceFetcher httpSourceFetcher;
+
+	@Autowired
+	private MultiSourceImporter multiSourceImporter;
+
+	@Autowired
+	private MappedFileImporter mappedFileImporter;
 
 	@Override
-	public List<AppUser> getUsers() {
-		logUploaderService.appendLogToS3("Fetching all users from MongoDB...");
-		List<AppUser> users = userRepository.findAll();
-		logUploaderService.appendLogToS3("Total users fetched: " + users.size());
-		return users;
+	public UserPage getUsers(String after, int limit, Set<String> fields) {
+		logUploaderService.log(LogEvent.dbTransaction("Fetching users", after));
+		// keyset pagination: an _id range on the primary index, whatever the page number
+		Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id")).limit(limit + 1);
+		if (after != null) {
+			query.addCriteria(Criteria.where("id").gt(new ObjectId(after)));
+		}
+		// only the requested fields leave MongoDB; the password hash never does (an empty projection would be all)
+		query.fields().include("id");
+		query.fields().include(fields.stream().filter(USER_FIELDS::contains).toArray(String[]::new));
+		List<AppUser> users = mongoTemplate.find(query, AppUser.class);
+
+		boolean more = users.size() > limit;
+		List<AppUser> page = more ? users.subList(0, limit) : users;
+		List<Map<String, Object>> rows = new ArrayList<>(page.size());
+		for (AppUser user : page) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			for (String field : USER_FIELDS) {
+				if (fields.contains(field)) {
+					row.put(field, userField(user, field));
+				}
+			}
+			rows.add(row);
+		}
+		logUploaderService.log(LogEvent.dbTransaction("Users fetched", Integer.toString(rows.size())));
+		return new UserPage(rows, more ? page.get(page.size() - 1).getId() : null);
+	}
+
+	/** HTTP validator scope of a raw import: a change of mode or key must not be answered with 304. */
+	private static String rawScope(DeltaOptions delta) {
+		return RAW_DATA_COLLECTION + "/" + (delta != null ? delta.describe() : "append");
+	}
+
+	private static Object userField(AppUser user, String field) {
+		return switch (field) {
+		case "id" -> user.getId();
+		case "username" -> user.getUsername();
+		case "email" -> user.getEmail();
+		default -> user.getRoles();
+		};
 	}
 
 	@Override
-	public void importUsersFromCustomUrl(String url) {
-		RestTemplate restTemplate = new RestTemplate();
-		logUploaderService.appendLogToS3("🌐 Fetching JSON from URL: " + url);
+	public UserImportSummary importUsersFromCustomUrl(String url, boolean force, ImportProgress progress) {
+		logUploaderService.log(LogEvent.importStep("Fetching users", url));
 
 		try {
-			ExternalUser[] externalUsers = restTemplate.getForObject(url, ExternalUser[].class);
-			if (externalUsers == null || externalUsers.length == 0) {
-				logUploaderService.appendLogToS3("⚠ No users found at the provided URL.");
-				return;
+			Optional<ExternalUser[]> fetched = httpSourceFetcher.fetch(USERS_SCOPE, url, force,
+					body -> objectMapper.readValue(progress.track(body), ExternalUser[].class));
+			if (fetched.isEmpty()) {
+				logUploaderService.log(LogEvent.importStep("Source not modified, skipped", url));
+				return UserImportSummary.notModified();
+			}
+			ExternalUser[] externalUsers = fetched.get();
+			if (externalUsers.length == 0) {
+				logUploaderService.log(LogEvent.importStep("No users found", url));
+				return new UserImportSummary(0, 0, 0, 0, 0);
 			}
 
-			List<AppUser> savedUsers = Arrays.stream(externalUsers).map(externalUser -> {
-				logUploaderService.appendLogToS3("User Name: " + externalUser.getUsername());
-				AppUser appUser = new AppUser();
-				appUser.setUsername(externalUser.getUsername());
-				appUser.setEmail(externalUser.getEmail());
-				appUser.setPassword("external_dummy_password");
-
-				AppUser saved = userRepository.save(appUser);
-				logUploaderService.appendLogToS3("Saved user to MongoDB: " + saved.getId());
-				return saved;
-			}).toList();
-
-			logUploaderService.appendLogToS3("Finished importing " + savedUsers.size() + " users from custom URL.");
+			UserImportSummary summary = userUpsertImporter.upsert(Arrays.asList(externalUsers), progress);
+			logUploaderService.log(LogEvent.importStep("Finished importing users", summary.toString()));
+			return summary;
 
 		} catch (Exception e) {
-			logUploaderService.appendLogToS3("Error while importing from URL: " + e.getMessage());
+			logUploaderService.log(LogEvent.error("importUsersFromCustomUrl", e.getMessage()));
 			throw new RuntimeException("Failed to import users from URL", e);
 		}
 	}
 
 	@Override
-	public void importRawJsonFromUrl(String url) {
-		RestTemplate restTemplate = new RestTemplate();
-		logUploaderService.appendLogToS3("Fetching raw JSON from: " + url);
+	public ImportResult importRawJsonFromUrl(String url, DeltaOptions delta, boolean force, ImportProgress progress) {
+		logUploaderService.log(LogEvent.importStep("Fetching raw JSON", url));
 
 		try {
-			Object rawJson = restTemplate.getForObject(url, Object.class);
-			logUploaderService.appendLogToS3("Raw JSON fetched: " + rawJson.getClass().getSimpleName());
-
-			if (rawJson instanceof List<?> rawList) {
-				for (Object item : rawList) {
-					Document doc = new Document(objectMapper.convertValue(item, Map.class));
-					mongoTemplate.insert(doc, "external_raw_data");
-				}
-				logUploaderService.appendLogToS3(
-						"Saved " + rawList.size() + " documents to MongoDB collection: external_raw_data");
-
-			} else if (rawJson instanceof Map<?, ?> rawMap) {
-				Document doc = new Document(objectMapper.convertValue(rawMap, Map.class));
-				mongoTemplate.insert(doc, "external_raw_data");
-				logUploaderService.appendLogToS3("Saved 1 document to MongoDB collection: external_raw_data");
-
+			// the body is parsed while it is read, never buffered as a whole
+			Optional<ImportResult> fetched = httpSourceFetcher.fetch(rawScope(delta), url, force,
+					body -> streamingJsonImporter.importFrom(progress.track(body), RAW_DATA_COLLECTION, url, delta,
+							progress));
+			if (fetched.isEmpty()) {
+				logUploaderService.log(LogEvent.importStep("Source not modified, skipped", url));
+				return ImportResult.notModified();
+			}
+			ImportResult result = fetched.get();
+			if (result.getDocuments() == 0) {
+				logUploaderService.log(LogEvent.importStep("Unsupported JSON structure, skipped", url));
+			} else if (result.isDelta()) {
+				logUploaderService.log(LogEvent.dbTransaction("Merged documents into " + RAW_DATA_COLLECTION,
+						result.toString()));
 			} else {
-				logUploaderService.appendLogToS3("Unsupported JSON structure. Skipped saving.");
+				logUploaderService.log(LogEvent.dbTransaction("Saved documents to " + RAW_DATA_COLLECTION,
+						Long.toString(result.getDocuments())));
 			}
+			if (result.getSkipped() > 0) {
+				logUploaderService.log(LogEvent.importStep("Skipped non-object values", Long.toString(result.getSkipped())));
+			}
+			return result;
 
 		} catch (Exception e) {
-			logUploaderService.appendLogToS3("Error importing raw JSON: " + e.getMessage());
+			logUploaderService.log(LogEvent.error("importRawJsonFromUrl", e.getMessage()));
 			throw new RuntimeException("Failed to import unstructured JSON", e);
 		}
 	}
 
 	@Override
-	public List<Map<String, Object>> getJsonData() {
-	    List<Document> docs = mongoTemplate.findAll(Document.class, "external_raw_data");
-	    return docs.stream()
-	               .map(doc -> doc.entrySet().stream()
-	                   .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
-	               .toList();
+	public MultiSourceImportSummary importRawJsonFromUrls(List<String> urls, DeltaOptions delta, boolean force,
+			ImportProgress progress) throws InterruptedException {
+		logUploaderService.log(LogEvent.importStep("Fetching raw JSON sources", Integer.toString(urls.size())));
+		MultiSourceImportSummary summary = multiSourceImporter.importAll(urls,
+				url -> importRawJsonFromUrl(url, delta, force, progress), progress);
+		logUploaderService.log(LogEvent.importStep("Finished importing raw JSON sources", summary.toString()));
+		return summary;
+	}
+
+	@Override
+	public Path resolveImportFile(String relativePath) throws IOException {
+		return mappedFileImporter.resolve(relativePath);
+	}
+
+	@Override
+	public FileImportResult importFromFile(Path file, MappedFileImporter.Format format,
+			MappedFileImporter.Target target, DeltaOptions delta, ImportProgress progress)
+			throws IOException, InterruptedException {
+		logUploaderService.log(LogEvent.importStep("Importing file", file.toString()));
+		try {
+			FileImportResult result = mappedFileImporter.importFile(file, format, target, delta, progress);
+			logUploaderService.log(LogEvent.importStep("Finished importing file", result.toString()));
+			return result;
+		} catch (IOException | RuntimeException e) {
+			logUploaderService.log(LogEvent.error("importFromFile", e.getMessage()));
+			throw e;
+		}
+	}
+
+	@Override
+	public long writeJsonData(OutputStream out, boolean ndjson) throws IOException {
+		logUploaderService.log(LogEvent.dbTransaction("Streaming documents from " + RAW_DATA_COLLECTION, null));
+		// tombstoned documents are kept for auditing but no longer listed
+		Query live = Query.query(Criteria.where(StreamingJsonImporter.DELETED_FIELD).exists(false))
+				.cursorBatchSize(JSON_DATA_BATCH_SIZE);
+		long count = 0;
+		// one cursor batch in memory at a time; each document goes straight from the cursor to the response
+		try (Stream<Document> documents = mongoTemplate.stream(live, Document.class, RAW_DATA_COLLECTION);
+				JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+			if (ndjson) {
+				json.setRootValueSeparator(new SerializedString("\n"));
+			} else {
+				json.writeStartArray();
+			}
+			Iterator<Document> iterator = documents.iterator();
+			while (iterator.hasNext()) {
+				json.writeObject(iterator.next());
+				if (++count % JSON_DATA_BATCH_SIZE == 0) {
+					json.flush();
+				}
+			}
+			if (!ndjson) {
+				json.writeEndArray();
+			} else if (count > 0) {
+				json.writeRaw('\n');
+			}
+		}
+		logUploaderService.log(LogEvent.dbTransaction("Documents streamed", Long.toString(count)));
+		return count;
 	}
 
 }
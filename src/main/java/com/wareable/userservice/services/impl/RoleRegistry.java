@@ -0,0 +1,101 @@
+package com.wareable.userservice.services.impl;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.wareable.userservice.model.ERole;
+import com.wareable.userservice.model.Role;
+import com.wareable.userservice.repository.RoleRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory view of the {@code roles} collection. Roles are a fixed enum, so
+ * they are loaded once at startup (creating any that are missing) and
+ * resolved without database I/O afterwards. The map is replaced, never
+ * modified, so readers need no locking.
+ */
+@Service
+public class RoleRegistry {
+
+	private static final Logger logger = LoggerFactory.getLogger(RoleRegistry.class);
+
+	private final RoleRepository roleRepository;
+
+	private volatile Map<ERole, Role> roles = Collections.emptyMap();
+
+	public RoleRegistry(RoleRepository roleRepository) {
+		this.roleRepository = roleRepository;
+	}
+
+	@PostConstruct
+	void init() {
+		try {
+			refresh();
+		} catch (RuntimeException e) {
+			// signup retries on first use
+			logger.warn("Could not load roles at startup: {}", e.getMessage());
+		}
+	}
+
+	public Role get(ERole name) {
+		Role role = roles.get(name);
+		if (role == null) {
+			role = refresh().get(name);
+		}
+		if (role == null) {
+			throw new RuntimeException("Error: Role is not found.");
+		}
+		return role;
+	}
+
+	/**
+	 * Maps the role names of a signup request ("admin", "mod", anything else
+	 * meaning user) to roles; no names at all means the user role.
+	 */
+	public Set<Role> resolve(Set<String> requested) {
+		Set<Role> resolved = new HashSet<>();
+		if (requested == null) {
+			resolved.add(get(ERole.ROLE_USER));
+		} else {
+			requested.forEach(role -> resolved.add(get(toRoleName(role))));
+		}
+		return resolved;
+	}
+
+	/** Reloads all roles from MongoDB, seeding the ones that do not exist yet. */
+	public synchronized Map<ERole, Role> refresh() {
+		EnumMap<ERole, Role> loaded = new EnumMap<>(ERole.class);
+		for (Role role : roleRepository.findAll()) {
+			if (role.getName() != null) {
+				loaded.putIfAbsent(role.getName(), role);
+			}
+		}
+		for (ERole name : ERole.values()) {
+			if (!loaded.containsKey(name)) {
+				logger.info("Seeding missing role {}", name);
+				loaded.put(name, roleRepository.save(new Role(name)));
+			}
+		}
+		roles = Collections.unmodifiableMap(loaded);
+		return roles;
+	}
+
+	private static ERole toRoleName(String role) {
+		switch (role) {
+		case "admin":
+			return ERole.ROLE_ADMIN;
+		case "mod":
+			return ERole.ROLE_MODERATOR;
+		default:
+			return ERole.ROLE_USER;
+		}
+	}
+}
@@ -1,7 +1,11 @@
 package com.wareable.userservice.services.impl;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -9,15 +13,69 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.wareable.userservice.model.AppUser;
 import com.wareable.userservice.repository.UserRepository;
+import com.wareable.userservice.services.support.BoundedTtlCache;
+import com.wareable.userservice.services.support.CacheStats;
+import com.wareable.userservice.services.support.SingleFlight;
+
+import jakarta.annotation.PostConstruct;
 
+/**
+ * Loads users for authentication through a bounded, expiring cache. Callers
+ * that change a user's username, roles or password must {@link #evict(String)}
+ * it so the change is visible before the entry expires. Concurrent misses for
+ * the same username share a single MongoDB query.
+ * <p>
+ * As a {@link UserDetailsPasswordService} it stores the rehashed password
+ * when a signin finds the stored hash weaker than the current work factor.
+ */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 	@Autowired
 	UserRepository userRepository;
 
+	@Value("${userservice.cache.users.max-size:10000}")
+	private int cacheMaxSize;
+
+	@Value("${userservice.cache.users.ttl-seconds:300}")
+	private long cacheTtlSeconds;
+
+	private BoundedTtlCache<String, UserDetailsImpl> cache;
+
+	private final SingleFlight<String, UserDetailsImpl> lookups = new SingleFlight<>();
+
+	@PostConstruct
+	void init() {
+		cache = new BoundedTtlCache<>(cacheMaxSize, Duration.ofSeconds(cacheTtlSeconds));
+	}
+
 	@Override
 	@Transactional
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+		return cache.get(username, name -> lookups.execute(name, this::loadFromRepository));
+	}
+
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		AppUser appUser = userRepository.findByUsername(user.getUsername())
+				.orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + user.getUsername()));
+		appUser.setPassword(newPassword);
+		userRepository.save(appUser);
+		evict(appUser.getUsername());
+
+		return UserDetailsImpl.build(appUser);
+	}
+
+	public void evict(String username) {
+		if (username != null) {
+			cache.invalidate(username);
+		}
+	}
+
+	public CacheStats getCacheStats() {
+		return cache.getStats();
+	}
+
+	private UserDetailsImpl loadFromRepository(String username) {
 		AppUser user = userRepository.findByUsername(username)
 				.orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
 
@@ -0,0 +1,91 @@
+package com.wareable.userservice.services.impl;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import com.wareable.userservice.model.AppUser;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Creates the unique {@code username} and {@code email} indexes of the
+ * {@code appuser} collection at startup.
+ * <p>
+ * They are not declared with {@code @Indexed}: with automatic index creation a
+ * collection that already holds duplicate users would fail the build of the
+ * index and with it the application context. Here the duplicates are looked
+ * up and logged first, and an index that cannot be built is skipped with an
+ * error instead. Until the duplicates are cleaned up and the service
+ * restarted, {@link #isEnforced()} is {@code false} and signup checks for
+ * existing users before inserting.
+ */
+@Service
+public class UserIndexInitializer {
+
+	private static final Logger logger = LoggerFactory.getLogger(UserIndexInitializer.class);
+
+	private static final String COLLECTION = "appuser";
+
+	private static final int REPORTED_DUPLICATES = 20;
+
+	private final MongoTemplate mongoTemplate;
+
+	private volatile boolean enforced;
+
+	public UserIndexInitializer(MongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	@PostConstruct
+	void init() {
+		boolean username = ensureUnique("username", AppUser.USERNAME_INDEX, false);
+		boolean email = ensureUnique("email", AppUser.EMAIL_INDEX, true);
+		enforced = username && email;
+	}
+
+	/** Whether both unique indexes exist, i.e. an insert alone rejects duplicate users. */
+	public boolean isEnforced() {
+		return enforced;
+	}
+
+	private boolean ensureUnique(String field, String name, boolean sparse) {
+		try {
+			List<Document> duplicates = findDuplicates(field);
+			if (!duplicates.isEmpty()) {
+				logger.error("Collection {} has duplicate {} values, not creating unique index {}: {}", COLLECTION,
+						field, name, duplicates);
+				return false;
+			}
+			Index index = new Index().on(field, Sort.Direction.ASC).unique().named(name);
+			if (sparse) {
+				index.sparse();
+			}
+			mongoTemplate.indexOps(COLLECTION).ensureIndex(index);
+			return true;
+		} catch (RuntimeException e) {
+			// e.g. a duplicate inserted since the check, or MongoDB not reachable yet
+			logger.error("Could not create unique index {} on {}.{}: {}", name, COLLECTION, field, e.getMessage());
+			return false;
+		}
+	}
+
+	/** Up to {@value #REPORTED_DUPLICATES} values of {@code field} held by more than one user, with their counts. */
+	private List<Document> findDuplicates(String field) {
+		Aggregation aggregation = Aggregation
+				.newAggregation(Aggregation.match(Criteria.where(field).exists(true)),
+						Aggregation.group(field).count().as("count"),
+						Aggregation.match(Criteria.where("count").gt(1)), Aggregation.limit(REPORTED_DUPLICATES))
+				.withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+		return mongoTemplate.aggregate(aggregation, COLLECTION, Document.class).getMappedResults();
+	}
+}
@@ -0,0 +1,176 @@
+package com.wareable.userservice.services.support;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Small in-process cache with a size bound and a time-to-live.
+ * <p>
+ * Reads are a single {@link ConcurrentHashMap} lookup plus, on the first hit
+ * since the entry was last considered for eviction, one volatile write. Once
+ * the cache grows past {@code maxSize} the oldest entries are evicted,
+ * except that an entry read since it was queued gets a second chance and is
+ * queued again (CLOCK, an approximation of LRU). Expired entries are dropped
+ * lazily when read. Loading happens outside any lock, so two threads missing
+ * the same key may both call the loader; the last one wins. A load that
+ * overlaps an invalidation is returned but not kept, so a value read before
+ * a change cannot outlive the invalidation that followed the change.
+ */
+public final class BoundedTtlCache<K, V> {
+
+	private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+	private final ConcurrentLinkedQueue<Node<K, V>> evictionOrder = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	/** Bumped by every invalidation; loads that saw it change are not cached. */
+	private final AtomicLong invalidations = new AtomicLong();
+	private final int maxSize;
+	private final long ttlNanos;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public BoundedTtlCache(int maxSize, Duration ttl) {
+		this.maxSize = Math.max(1, maxSize);
+		this.ttlNanos = ttl.toNanos();
+	}
+
+	/** Returns the cached value for {@code key}, loading and caching it on a miss. */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		Optional<V> cached = getIfPresent(key);
+		if (cached.isPresent()) {
+			return cached.get();
+		}
+		long generation = invalidations.get();
+		V value = loader.apply(key);
+		if (value != null && invalidations.get() == generation) {
+			Entry<V> entry = put(key, value, ttlNanos);
+			// an invalidation between the check and the put may have missed the new entry
+			if (entry != null && invalidations.get() != generation) {
+				entries.remove(key, entry);
+			}
+		}
+		return value;
+	}
+
+	public Optional<V> getIfPresent(K key) {
+		Entry<V> entry = entries.get(key);
+		if (entry != null) {
+			if (entry.expiresAt - System.nanoTime() > 0) {
+				if (!entry.referenced) {
+					entry.referenced = true;
+				}
+				hits.increment();
+				return Optional.of(entry.value);
+			}
+			if (entries.remove(key, entry)) {
+				evictions.increment();
+			}
+		}
+		misses.increment();
+		return Optional.empty();
+	}
+
+	public void put(K key, V value) {
+		put(key, value, ttlNanos);
+	}
+
+	/** Caches {@code value} for {@code ttl}, capped at the cache's own time-to-live. */
+	public void put(K key, V value, Duration ttl) {
+		put(key, value, Math.min(ttlNanos, ttl.toNanos()));
+	}
+
+	private Entry<V> put(K key, V value, long ttl) {
+		if (ttl <= 0) {
+			return null;
+		}
+		Entry<V> entry = new Entry<>(value, System.nanoTime() + ttl);
+		entries.put(key, entry);
+		enqueue(new Node<>(key, entry));
+		evictOverflow();
+		return entry;
+	}
+
+	public void invalidate(K key) {
+		invalidations.incrementAndGet();
+		entries.remove(key);
+	}
+
+	/** Removes every entry matching {@code filter}. Walks the whole cache. */
+	public void invalidateIf(BiPredicate<? super K, ? super V> filter) {
+		invalidations.incrementAndGet();
+		entries.entrySet().removeIf(entry -> filter.test(entry.getKey(), entry.getValue().value));
+	}
+
+	public void invalidateAll() {
+		invalidations.incrementAndGet();
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public CacheStats getStats() {
+		return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), maxSize);
+	}
+
+	private void enqueue(Node<K, V> node) {
+		evictionOrder.add(node);
+		queued.incrementAndGet();
+	}
+
+	/**
+	 * Evicts from the head of the queue while the cache is over its bound.
+	 * Nodes whose entry was since replaced or invalidated are skipped; they
+	 * are also drained once the queue itself grows past twice the bound, so
+	 * repeated invalidations cannot make it grow without limit.
+	 */
+	private void evictOverflow() {
+		while (entries.size() > maxSize || queued.get() > 2 * maxSize) {
+			Node<K, V> oldest = evictionOrder.poll();
+			if (oldest == null) {
+				return;
+			}
+			queued.decrementAndGet();
+			Entry<V> entry = oldest.entry;
+			if (entries.get(oldest.key) != entry) {
+				continue;
+			}
+			if (entry.referenced && queued.get() < 2 * maxSize) {
+				entry.referenced = false;
+				enqueue(oldest);
+			} else if (entries.remove(oldest.key, entry)) {
+				evictions.increment();
+			}
+		}
+	}
+
+	private static final class Entry<V> {
+		final V value;
+		final long expiresAt;
+		volatile boolean referenced;
+
+		Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private static final class Node<K, V> {
+		final K key;
+		final Entry<V> entry;
+
+		Node(K key, Entry<V> entry) {
+			this.key = key;
+			this.entry = entry;
+		}
+	}
+}
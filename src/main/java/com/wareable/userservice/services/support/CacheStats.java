@@ -0,0 +1,42 @@
+package com.wareable.userservice.services.support;
+
+public class CacheStats {
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final int size;
+	private final int maxSize;
+
+	public CacheStats(long hits, long misses, long evictions, int size, int maxSize) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.size = size;
+		this.maxSize = maxSize;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public double getHitRatio() {
+		long total = hits + misses;
+		return total == 0 ? 0 : (double) hits / total;
+	}
+}
@@ -0,0 +1,79 @@
+package com.wareable.userservice.services.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free bloom filter over strings. {@link #put(String)} sets bits with
+ * CAS, {@link #mightContain(String)} only reads, so both can run from any
+ * number of threads. A negative answer is exact; a positive one must be
+ * confirmed against the real set. Elements cannot be removed: build a new
+ * filter and swap it in instead.
+ */
+public final class ConcurrentBloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bitCount;
+	private final int hashCount;
+
+	/**
+	 * @param expectedInsertions elements the filter is sized for
+	 * @param falsePositiveRate  target false positive rate at that size
+	 */
+	public ConcurrentBloomFilter(long expectedInsertions, double falsePositiveRate) {
+		long n = Math.max(1, expectedInsertions);
+		double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+		long bits = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+		int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+		this.words = new AtomicLongArray(wordCount);
+		this.bitCount = (long) wordCount << 6;
+		this.hashCount = (int) Math.max(1, Math.min(16, Math.round((double) bitCount / n * Math.log(2))));
+	}
+
+	public void put(String value) {
+		long hash = hash64(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = index(h1 + i * h2);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current = words.get(word);
+			while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+				current = words.get(word);
+			}
+		}
+	}
+
+	public boolean mightContain(String value) {
+		long hash = hash64(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = index(h1 + i * h2);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long index(int combined) {
+		// Kirsch-Mitzenmacher double hashing; flip negatives into range
+		return (combined < 0 ? ~combined : combined) % bitCount;
+	}
+
+	/** FNV-1a over the chars, finished with the murmur3 fmix64 avalanche. */
+	private static long hash64(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
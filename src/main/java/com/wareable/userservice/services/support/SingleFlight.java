@@ -0,0 +1,60 @@
+package com.wareable.userservice.services.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the
+ * loader, callers arriving while it is in flight wait for and share its
+ * result (or exception). Nothing is kept once the load completes, so this is
+ * meant to sit behind a cache, not to replace one.
+ */
+public final class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder coalesced = new LongAdder();
+
+	public V execute(K key, Function<? super K, ? extends V> loader) {
+		CompletableFuture<V> call = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+		if (existing != null) {
+			coalesced.increment();
+			return await(existing);
+		}
+
+		try {
+			V value = loader.apply(key);
+			call.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			call.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, call);
+		}
+	}
+
+	/** Number of calls that were served by another caller's load. */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	private static <V> V await(CompletableFuture<V> call) {
+		try {
+			return call.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package com.wareable.userservice.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.result.UpdateResult;
+
+class DeltaWriterTest {
+
+	private static final String COLLECTION = "external_raw_data";
+
+	private static final String SOURCE = "https://example.com/data.json";
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+	private final BulkOperations bulk = mock(BulkOperations.class);
+
+	private final List<Document> stored = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION)).thenReturn(bulk);
+		when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(COLLECTION))).thenReturn(stored);
+		when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(COLLECTION)))
+				.thenReturn(UpdateResult.acknowledged(3, 3L, null));
+	}
+
+	@Test
+	void hashModeKeepsRepeatedRecords() {
+		upserts(2);
+		DeltaWriter writer = new DeltaWriter(mongoTemplate, COLLECTION, SOURCE, DeltaOptions.byHash(false));
+
+		writer.write(List.of(new Document("a", 1), new Document("a", 1)));
+
+		List<Document> written = replacements(2);
+		String hash = written.get(0).getString(DeltaWriter.HASH_FIELD);
+		assertThat(written.get(1).getString(DeltaWriter.HASH_FIELD)).isEqualTo(hash);
+		assertThat(written).extracting(document -> document.getString(DeltaWriter.KEY_FIELD))
+				.containsExactly(hash, hash + "#2");
+		ImportResult result = writer.finish(2, 1, 0);
+		assertThat(result.getInserted()).isEqualTo(2);
+		assertThat(result.getSkipped()).isZero();
+	}
+
+	@Test
+	void keyModeKeepsTheLastOccurrenceOfAKey() {
+		upserts(1);
+		DeltaWriter writer = new DeltaWriter(mongoTemplate, COLLECTION, SOURCE, DeltaOptions.byKey("user.id", false));
+
+		writer.write(List.of(new Document("user", new Document("id", 7)).append("v", 1),
+				new Document("user", new Document("id", 7)).append("v", 2)));
+
+		List<Document> written = replacements(1);
+		assertThat(written.get(0).getString(DeltaWriter.KEY_FIELD)).isEqualTo("7");
+		assertThat(written.get(0).getInteger("v")).isEqualTo(2);
+		assertThat(written.get(0).getString(StreamingJsonImporter.SOURCE_FIELD)).isEqualTo(SOURCE);
+		assertThat(writer.finish(2, 1, 0).getSkipped()).isEqualTo(1);
+	}
+
+	@Test
+	void keyModeFallsBackToTheHashWithoutTheKey() {
+		upserts(1);
+		DeltaWriter writer = new DeltaWriter(mongoTemplate, COLLECTION, SOURCE, DeltaOptions.byKey("id", false));
+
+		writer.write(List.of(new Document("name", "no id")));
+
+		Document written = replacements(1).get(0);
+		assertThat(written.getString(DeltaWriter.KEY_FIELD)).isEqualTo(written.getString(DeltaWriter.HASH_FIELD));
+	}
+
+	@Test
+	void sourceIdIsKeptOutOfTheReplacement() {
+		upserts(1);
+		DeltaWriter writer = new DeltaWriter(mongoTemplate, COLLECTION, SOURCE, DeltaOptions.byKey("_id", false));
+
+		writer.write(List.of(new Document("_id", "abc").append("v", 1)));
+
+		Document written = replacements(1).get(0);
+		assertThat(written).doesNotContainKey("_id");
+		assertThat(written.getString(DeltaWriter.SOURCE_ID_FIELD)).isEqualTo("abc");
+		assertThat(written.getString(DeltaWriter.KEY_FIELD)).isEqualTo("abc");
+	}
+
+	@Test
+	void unchangedDocumentsAreOnlyMarkedSeen() {
+		DeltaWriter probe = new DeltaWriter(mongoTemplate, COLLECTION, SOURCE, DeltaOptions.byKey("id", true));
+		upserts(1);
+		probe.write(List.of(new Document("id", 1).append("v", "same")));
+		Document previous = replacements(1).get(0);
+		stored.add(new Document(DeltaWriter.KEY_FIELD, "1").append(DeltaWriter.HASH_FIELD,
+				previous.get(DeltaWriter.HASH_FIELD)));
+
+		BulkOperations second = mock(BulkOperations.class);
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION)).thenReturn(second);
+		DeltaWriter writer = new DeltaWriter(mongoTemplate, COLLECTION, SOURCE, DeltaOptions.byKey("id", true));
+		writer.write(List.of(new Document("id", 1).append("v", "same")));
+
+		verify(second, never()).execute();
+		ArgumentCaptor<Update> seen = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateMulti(any(Query.class), seen.capture(), eq(COLLECTION));
+		assertThat(seen.getValue().getUpdateObject().toJson()).contains(DeltaWriter.LAST_SEEN_FIELD);
+
+		ImportResult result = writer.finish(1, 1, 0);
+		assertThat(result.getUnchanged()).isEqualTo(1);
+		assertThat(result.getTombstoned()).isEqualTo(3);
+	}
+
+	@Test
+	void tombstonedDocumentsAreWrittenAgain() {
+		stored.add(new Document(DeltaWriter.KEY_FIELD, "1").append(DeltaWriter.HASH_FIELD, "whatever")
+				.append(DeltaWriter.DELETED_FIELD, new Date()));
+		upserts(0);
+		DeltaWriter writer = new DeltaWriter(mongoTemplate, COLLECTION, SOURCE, DeltaOptions.byKey("id", false));
+
+		writer.write(List.of(new Document("id", 1)));
+
+		assertThat(replacements(1).get(0)).doesNotContainKey(DeltaWriter.DELETED_FIELD);
+	}
+
+	@Test
+	void emptyRunTombstonesNothing() {
+		DeltaWriter writer = new DeltaWriter(mongoTemplate, COLLECTION, SOURCE, DeltaOptions.byHash(true));
+
+		ImportResult result = writer.finish(0, 0, 0);
+
+		assertThat(result.getTombstoned()).isZero();
+		verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(COLLECTION));
+	}
+
+	@Test
+	void withoutTombstoningUnseenDocumentsAreLeftAlone() {
+		DeltaWriter writer = new DeltaWriter(mongoTemplate, COLLECTION, SOURCE, DeltaOptions.byHash(false));
+
+		assertThat(writer.finish(5, 1, 0).getTombstoned()).isZero();
+		verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(COLLECTION));
+	}
+
+	private void upserts(int count) {
+		BulkWriteResult result = mock(BulkWriteResult.class);
+		List<BulkWriteUpsert> upserts = new ArrayList<>(Collections.nCopies(count, mock(BulkWriteUpsert.class)));
+		when(result.getUpserts()).thenReturn(upserts);
+		when(bulk.execute()).thenReturn(result);
+	}
+
+	private List<Document> replacements(int expected) {
+		ArgumentCaptor<Object> documents = ArgumentCaptor.forClass(Object.class);
+		verify(bulk, times(expected)).replaceOne(any(Query.class), documents.capture(),
+				any(FindAndReplaceOptions.class));
+		return documents.getAllValues().stream().map(Document.class::cast).toList();
+	}
+}
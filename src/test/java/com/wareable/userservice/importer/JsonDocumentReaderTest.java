@@ -0,0 +1,99 @@
+package com.wareable.userservice.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+
+class JsonDocumentReaderTest {
+
+	private final JsonFactory factory = new JsonFactory();
+
+	@Test
+	void readsEachObjectOfATopLevelArray() throws IOException {
+		List<Document> documents = readAll(reader("[{\"a\":1},{\"b\":\"x\"}]"));
+
+		assertThat(documents).containsExactly(new Document("a", 1), new Document("b", "x"));
+	}
+
+	@Test
+	void readsASingleObjectAndConcatenatedObjects() throws IOException {
+		assertThat(readAll(reader("{\"a\":1}"))).containsExactly(new Document("a", 1));
+		assertThat(readAll(reader("{\"a\":1}\n{\"a\":2}\n"))).containsExactly(new Document("a", 1),
+				new Document("a", 2));
+	}
+
+	@Test
+	void skipsAndCountsValuesThatAreNotObjects() throws IOException {
+		JsonDocumentReader reader = reader("[1, \"two\", {\"a\":1}, [{\"nested\":true}], null]");
+
+		assertThat(readAll(reader)).containsExactly(new Document("a", 1));
+		assertThat(reader.getSkipped()).isEqualTo(4);
+	}
+
+	@Test
+	void mapsValueTypes() throws IOException {
+		Document document = reader("{\"i\":1,\"l\":3000000000,\"d\":1.5,\"b\":true,\"n\":null,"
+				+ "\"o\":{\"s\":\"x\"},\"a\":[1,\"y\",[false]]}").next();
+
+		assertThat(document.get("i")).isEqualTo(1);
+		assertThat(document.get("l")).isEqualTo(3000000000L);
+		assertThat(document.get("d")).isEqualTo(1.5);
+		assertThat(document.get("b")).isEqualTo(true);
+		assertThat(document.containsKey("n")).isTrue();
+		assertThat(document.get("n")).isNull();
+		assertThat(document.get("o")).isEqualTo(new Document("s", "x"));
+		assertThat(document.getList("a", Object.class)).containsExactly(1, "y", List.of(false));
+	}
+
+	@Test
+	void keepsBigIntegersExactlyAsDecimal128OrString() throws IOException {
+		String fits = "1234567890123456789012345678901234";
+		String tooLong = "12345678901234567890123456789012345";
+		Document document = reader("{\"fits\":" + fits + ",\"tooLong\":-" + tooLong + "}").next();
+
+		assertThat(document.get("fits")).isEqualTo(new Decimal128(new BigDecimal(fits)));
+		assertThat(document.get("tooLong")).isEqualTo("-" + tooLong);
+	}
+
+	@Test
+	void failsOnATruncatedObject() throws IOException {
+		JsonDocumentReader reader = reader("[{\"a\":1},{\"b\":");
+
+		assertThat(reader.next()).isEqualTo(new Document("a", 1));
+		assertThatThrownBy(reader::next).isInstanceOf(JsonParseException.class);
+	}
+
+	@Test
+	void returnsNullOnceExhausted() throws IOException {
+		JsonDocumentReader reader = reader("");
+
+		assertThat(reader.next()).isNull();
+		assertThat(reader.next()).isNull();
+	}
+
+	private JsonDocumentReader reader(String json) throws IOException {
+		JsonParser parser = factory.createParser(json);
+		return new JsonDocumentReader(parser);
+	}
+
+	private static List<Document> readAll(JsonDocumentReader reader) throws IOException {
+		List<Document> documents = new ArrayList<>();
+		Document document;
+		while ((document = reader.next()) != null) {
+			documents.add(document);
+		}
+		return documents;
+	}
+}
@@ -0,0 +1,81 @@
+package com.wareable.userservice.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedFileImporterTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void splitsAnArrayOnlyAtTopLevelCommas() throws IOException {
+		String json = "[{\"a\":\"x,y\"},{\"b\":\"]\"},{\"c\":\"\\\"},\"},{\"d\":[1,{\"e\":2}]}, 1, [2,3]]";
+
+		assertThat(split(json, 1)).containsExactly("{\"a\":\"x,y\"}", "{\"b\":\"]\"}", "{\"c\":\"\\\"},\"}",
+				"{\"d\":[1,{\"e\":2}]}", " 1", " [2,3]");
+	}
+
+	@Test
+	void groupsElementsUpToTheChunkSize() throws IOException {
+		String json = "  [{\"a\":1},{\"b\":2},{\"c\":3}]\n";
+
+		assertThat(split(json, 1024)).containsExactly("{\"a\":1},{\"b\":2},{\"c\":3}");
+		assertThat(split(json, 14)).containsExactly("{\"a\":1},{\"b\":2}", "{\"c\":3}");
+	}
+
+	@Test
+	void emptyArrayIsOneEmptyChunk() throws IOException {
+		assertThat(split("[]", 1)).containsExactly("");
+	}
+
+	@Test
+	void rejectsInputThatIsNotAnArray() {
+		assertThatThrownBy(() -> split("{\"a\":1}", 1)).isInstanceOf(IOException.class)
+				.hasMessageContaining("Not a JSON array");
+		assertThatThrownBy(() -> split("[{\"a\":\"]\"}", 1)).isInstanceOf(IOException.class)
+				.hasMessageContaining("Unterminated");
+	}
+
+	@Test
+	void nextNewlineSkipsEscapedNewlinesInStrings() throws IOException {
+		String ndjson = "{\"a\":\"one\\ntwo\"}\n{\"b\":1}\n{\"c\":2}";
+		Path file = write(ndjson);
+		int firstEnd = ndjson.indexOf('\n') + 1;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			assertThat(MappedFileImporter.nextNewline(channel, 0, size)).isEqualTo(firstEnd);
+			assertThat(MappedFileImporter.nextNewline(channel, firstEnd, size)).isEqualTo(ndjson.indexOf('\n', firstEnd) + 1);
+			assertThat(MappedFileImporter.nextNewline(channel, ndjson.lastIndexOf('\n') + 1, size)).isEqualTo(size);
+			assertThat(MappedFileImporter.nextNewline(channel, size + 10, size)).isEqualTo(size);
+		}
+	}
+
+	private List<String> split(String json, long chunkBytes) throws IOException {
+		Path file = write(json);
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		List<String> chunks = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedFileImporter.splitArray(channel, channel.size(), chunkBytes,
+					(from, to) -> chunks.add(new String(bytes, (int) from, (int) (to - from), StandardCharsets.UTF_8)));
+		}
+		return chunks;
+	}
+
+	private Path write(String content) throws IOException {
+		return Files.writeString(Files.createTempFile(directory, "import", ".json"), content);
+	}
+}
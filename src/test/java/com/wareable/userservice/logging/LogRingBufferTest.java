@@ -0,0 +1,108 @@
+package com.wareable.userservice.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LogRingBufferTest {
+
+	@Test
+	void keepsOrderAcrossManyWraparounds() {
+		LogRingBuffer buffer = new LogRingBuffer(4);
+		int next = 0;
+		int expected = 0;
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < 3; i++) {
+				assertThat(buffer.offer(event(next++))).isTrue();
+			}
+			for (int i = 0; i < 3; i++) {
+				assertThat(buffer.poll().getFirst()).isEqualTo(Integer.toString(expected++));
+			}
+		}
+		assertThat(buffer.poll()).isNull();
+		assertThat(buffer.size()).isZero();
+	}
+
+	@Test
+	void fullBufferRejectsTheNewestEvent() {
+		LogRingBuffer buffer = new LogRingBuffer(4);
+		for (int i = 0; i < 4; i++) {
+			assertThat(buffer.offer(event(i))).isTrue();
+		}
+
+		assertThat(buffer.offer(event(4))).isFalse();
+		assertThat(buffer.size()).isEqualTo(4);
+		assertThat(drain(buffer)).containsExactly("0", "1", "2", "3");
+	}
+
+	@Test
+	void discardOldestMakesRoomForTheNewestEvent() {
+		LogRingBuffer buffer = new LogRingBuffer(4);
+		for (int i = 0; i < 4; i++) {
+			buffer.offer(event(i));
+		}
+
+		assertThat(buffer.discardOldest()).isTrue();
+		assertThat(buffer.offer(event(4))).isTrue();
+		assertThat(drain(buffer)).containsExactly("1", "2", "3", "4");
+		assertThat(buffer.discardOldest()).isFalse();
+	}
+
+	@Test
+	void capacityIsRoundedUpToAPowerOfTwo() {
+		LogRingBuffer buffer = new LogRingBuffer(5);
+		int accepted = 0;
+		while (buffer.offer(event(accepted))) {
+			accepted++;
+		}
+		assertThat(accepted).isEqualTo(8);
+	}
+
+	@Test
+	void concurrentProducersLoseNothingWhileThereIsRoom() throws InterruptedException {
+		int producers = 4;
+		int perProducer = 10_000;
+		LogRingBuffer buffer = new LogRingBuffer(producers * perProducer);
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int p = 0; p < producers; p++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = 0; i < perProducer; i++) {
+					buffer.offer(event(i));
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(buffer.size()).isEqualTo(producers * perProducer);
+		assertThat(drain(buffer)).hasSize(producers * perProducer);
+	}
+
+	private static LogEvent event(int n) {
+		return LogEvent.message(Integer.toString(n));
+	}
+
+	private static List<String> drain(LogBuffer buffer) {
+		List<String> values = new ArrayList<>();
+		LogEvent event;
+		while ((event = buffer.poll()) != null) {
+			values.add(event.getFirst());
+		}
+		return values;
+	}
+}
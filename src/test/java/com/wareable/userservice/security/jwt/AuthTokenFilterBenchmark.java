@@ -0,0 +1,88 @@
+package com.wareable.userservice.security.jwt;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jakarta.servlet.ServletException;
+
+/**
+ * Per-request cost of {@link AuthTokenFilter} for a client that keeps sending
+ * the same token, with the verified-token cache in {@link JwtUtils} switched
+ * off and on. Runs on four threads to approximate a busy server.
+ * <p>
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main AuthTokenFilterBenchmark}
+ * or through {@link #main(String[])} from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean tokenCache;
+
+	private AuthTokenFilter filter;
+
+	private String authorization;
+
+	@Setup
+	public void setUp() {
+		JwtUtils jwtUtils = new JwtUtils();
+		ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JwtUtilsBenchmark.SECRET);
+		ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+		ReflectionTestUtils.setField(jwtUtils, "jwtCacheEnabled", tokenCache);
+		ReflectionTestUtils.setField(jwtUtils, "jwtCacheMaxSize", 10_000);
+		jwtUtils.init();
+
+		filter = new AuthTokenFilter();
+		ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+		ReflectionTestUtils.setField(filter, "tokenRevocationService",
+				new TokenRevocationService(null, jwtUtils, 3_600_000, 30, 100_000, 0.01));
+		ReflectionTestUtils.setField(filter, "statelessAuth", true);
+		ReflectionTestUtils.setField(filter, "dbLookupPaths", List.of());
+
+		authorization = "Bearer " + JwtUtilsBenchmark.issueToken(jwtUtils);
+	}
+
+	@Benchmark
+	public Object filterRequest() throws ServletException, IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/log/stats");
+		request.addHeader("Authorization", authorization);
+		try {
+			filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+			return SecurityContextHolder.getContext().getAuthentication();
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(AuthTokenFilterBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,89 @@
+package com.wareable.userservice.security.jwt;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.wareable.userservice.services.impl.UserDetailsImpl;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Compares the old per-request token handling (decode the secret and build a
+ * parser for validation, then again to read the subject) with
+ * {@link JwtUtils#parseAndValidate(String)}.
+ * <p>
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main JwtUtilsBenchmark}
+ * or through {@link #main(String[])} from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+	static final String SECRET = "YmVuY2htYXJrLW9ubHktaG1hYy1zZWNyZXQtMDEyMzQ1Njc4OWFiY2RlZg==";
+
+	private JwtUtils jwtUtils;
+
+	private String token;
+
+	@Setup
+	public void setUp() {
+		jwtUtils = newJwtUtils();
+		token = issueToken(jwtUtils);
+	}
+
+	@Benchmark
+	public String legacyValidateThenParse() {
+		Key validationKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+		Jwts.parserBuilder().setSigningKey(validationKey).build().parse(token);
+
+		Key subjectKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+		return Jwts.parserBuilder().setSigningKey(subjectKey).build().parseClaimsJws(token).getBody().getSubject();
+	}
+
+	@Benchmark
+	public String parseAndValidate() {
+		return jwtUtils.parseAndValidate(token).getClaims().getSubject();
+	}
+
+	static JwtUtils newJwtUtils() {
+		JwtUtils jwtUtils = new JwtUtils();
+		ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+		jwtUtils.init();
+		return jwtUtils;
+	}
+
+	static String issueToken(JwtUtils jwtUtils) {
+		UserDetailsImpl user = new UserDetailsImpl("64f0c2a1e4b0a1b2c3d4e5f6", "bench", "bench@example.com", null,
+				List.of(new SimpleGrantedAuthority("ROLE_USER")));
+		return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(JwtUtilsBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,128 @@
+package com.wareable.userservice.services.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class BoundedTtlCacheTest {
+
+	@Test
+	void loadsOnceAndServesHitsFromTheCache() {
+		BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofMinutes(1));
+		AtomicInteger loads = new AtomicInteger();
+
+		assertThat(cache.get("a", key -> key + loads.incrementAndGet())).isEqualTo("a1");
+		assertThat(cache.get("a", key -> key + loads.incrementAndGet())).isEqualTo("a1");
+		assertThat(loads).hasValue(1);
+		assertThat(cache.getStats().getHits()).isEqualTo(1);
+		assertThat(cache.getStats().getMisses()).isEqualTo(1);
+	}
+
+	@Test
+	void nullIsNotCached() {
+		BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofMinutes(1));
+
+		assertThat(cache.get("a", key -> null)).isNull();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void entriesExpireAfterTheTtl() throws InterruptedException {
+		BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofMillis(50));
+		cache.put("a", "1");
+		// a longer per-entry ttl is capped at the cache's own
+		cache.put("b", "2", Duration.ofHours(1));
+		assertThat(cache.getIfPresent("a")).contains("1");
+
+		Thread.sleep(120);
+
+		assertThat(cache.getIfPresent("a")).isEmpty();
+		assertThat(cache.getIfPresent("b")).isEmpty();
+		assertThat(cache.getStats().getEvictions()).isEqualTo(2);
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void nonPositiveTtlIsNotCached() {
+		BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofMinutes(1));
+		cache.put("a", "1", Duration.ZERO);
+
+		assertThat(cache.getIfPresent("a")).isEmpty();
+	}
+
+	@Test
+	void evictsTheOldestUnreadEntryWhenFull() {
+		BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(3, Duration.ofMinutes(1));
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		// a was read since it was queued, so it gets a second chance
+		cache.getIfPresent("a");
+
+		cache.put("d", "4");
+
+		assertThat(cache.size()).isEqualTo(3);
+		assertThat(cache.getIfPresent("b")).isEmpty();
+		assertThat(cache.getIfPresent("a")).contains("1");
+		assertThat(cache.getIfPresent("c")).contains("3");
+		assertThat(cache.getIfPresent("d")).contains("4");
+		assertThat(cache.getStats().getEvictions()).isEqualTo(1);
+	}
+
+	@Test
+	void replacedAndInvalidatedEntriesDoNotCountAgainstTheBound() {
+		BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(2, Duration.ofMinutes(1));
+		for (int i = 0; i < 100; i++) {
+			cache.put("a", Integer.toString(i));
+			cache.invalidate("b");
+		}
+		cache.put("b", "b");
+
+		assertThat(cache.getIfPresent("a")).contains("99");
+		assertThat(cache.getIfPresent("b")).contains("b");
+		assertThat(cache.getStats().getEvictions()).isZero();
+	}
+
+	@Test
+	void invalidateIfRemovesMatchingEntries() {
+		BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(10, Duration.ofMinutes(1));
+		cache.put("a", 1);
+		cache.put("b", 2);
+
+		cache.invalidateIf((key, value) -> value % 2 == 0);
+
+		assertThat(cache.getIfPresent("a")).contains(1);
+		assertThat(cache.getIfPresent("b")).isEmpty();
+	}
+
+	@Test
+	void loadOverlappingAnInvalidationIsNotCached() {
+		BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofMinutes(1));
+
+		// the user is changed and evicted while the old version is being loaded
+		String loaded = cache.get("a", key -> {
+			cache.invalidate(key);
+			return "stale";
+		});
+
+		assertThat(loaded).isEqualTo("stale");
+		assertThat(cache.getIfPresent("a")).isEmpty();
+		assertThat(cache.get("a", key -> "fresh")).isEqualTo("fresh");
+		assertThat(cache.getIfPresent("a")).contains("fresh");
+	}
+
+	@Test
+	void loadOverlappingInvalidateAllIsNotCached() {
+		BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofMinutes(1));
+
+		cache.get("a", key -> {
+			cache.invalidateAll();
+			return "stale";
+		});
+
+		assertThat(cache.size()).isZero();
+	}
+}
@@ -0,0 +1,82 @@
+package com.wareable.userservice.services.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentBloomFilterTest {
+
+	@Test
+	void emptyFilterContainsNothing() {
+		ConcurrentBloomFilter filter = new ConcurrentBloomFilter(1000, 0.01);
+
+		assertThat(filter.mightContain("jti-1")).isFalse();
+		assertThat(filter.mightContain("")).isFalse();
+	}
+
+	@Test
+	void hasNoFalseNegatives() {
+		ConcurrentBloomFilter filter = new ConcurrentBloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("jti-" + i);
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("jti-" + i)).as("jti-%d", i).isTrue();
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheTarget() {
+		ConcurrentBloomFilter filter = new ConcurrentBloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("jti-" + i);
+		}
+
+		int falsePositives = 0;
+		int probes = 100_000;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain("other-" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat((double) falsePositives / probes).isLessThan(0.03);
+	}
+
+	@Test
+	void concurrentPutsLoseNoBits() throws InterruptedException {
+		int threads = 4;
+		int perThread = 25_000;
+		ConcurrentBloomFilter filter = new ConcurrentBloomFilter(threads * perThread, 0.01);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = 0; i < perThread; i++) {
+					filter.put(thread + "-" + i);
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		for (int t = 0; t < threads; t++) {
+			for (int i = 0; i < perThread; i++) {
+				assertThat(filter.mightContain(t + "-" + i)).isTrue();
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.wareable.userservice.services.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+	private static final int FOLLOWERS = 4;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+
+	@AfterEach
+	void stop() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentCallersShareOneLoad() throws Exception {
+		SingleFlight<String, String> flight = new SingleFlight<>();
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> leader = executor.submit(() -> flight.execute("key", key -> {
+			loading.countDown();
+			await(release);
+			return key + loads.incrementAndGet();
+		}));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		List<Future<String>> followers = submitFollowers(flight, () -> "follower" + loads.incrementAndGet());
+		awaitCoalesced(flight, FOLLOWERS);
+		release.countDown();
+
+		assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("key1");
+		for (Future<String> follower : followers) {
+			assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("key1");
+		}
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void followersGetTheLeadersException() throws Exception {
+		SingleFlight<String, String> flight = new SingleFlight<>();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("database down");
+
+		Future<String> leader = executor.submit(() -> flight.execute("key", key -> {
+			loading.countDown();
+			await(release);
+			throw failure;
+		}));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		List<Future<String>> followers = submitFollowers(flight, () -> "unexpected");
+		awaitCoalesced(flight, FOLLOWERS);
+		release.countDown();
+
+		assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+				.hasCause(failure);
+		for (Future<String> follower : followers) {
+			assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+					.hasCause(failure);
+		}
+	}
+
+	@Test
+	void completedLoadsAreNotKept() {
+		SingleFlight<String, Integer> flight = new SingleFlight<>();
+		AtomicInteger loads = new AtomicInteger();
+
+		assertThat(flight.execute("key", key -> loads.incrementAndGet())).isEqualTo(1);
+		assertThat(flight.execute("key", key -> loads.incrementAndGet())).isEqualTo(2);
+		assertThat(flight.getCoalesced()).isZero();
+	}
+
+	private List<Future<String>> submitFollowers(SingleFlight<String, String> flight, Loader loader) {
+		List<Future<String>> followers = new ArrayList<>();
+		for (int i = 0; i < FOLLOWERS; i++) {
+			followers.add(executor.submit(() -> flight.execute("key", key -> loader.load())));
+		}
+		return followers;
+	}
+
+	private static void awaitCoalesced(SingleFlight<?, ?> flight, long expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (flight.getCoalesced() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(flight.getCoalesced()).isEqualTo(expected);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@FunctionalInterface
+	private interface Loader {
+		String load();
+	}
+}